@@ -55,6 +55,14 @@ CREATE SEQUENCE IF NOT EXISTS password_reset_token_sequence
     MAXVALUE 9223372036854775807
     CACHE 1;
 
+-- Sequence cho bảng refresh_tokens
+CREATE SEQUENCE IF NOT EXISTS refresh_token_sequence
+    INCREMENT 1
+    START 1
+    MINVALUE 1
+    MAXVALUE 9223372036854775807
+    CACHE 1;
+
 -- Tạo bảng permissions (Quyền)
 CREATE TABLE IF NOT EXISTS permissions (
     -- ID tự tăng
@@ -132,7 +140,9 @@ CREATE TABLE IF NOT EXISTS users (
     -- Nhà cung cấp xã hội (Google, Facebook, etc.)
     social_provider VARCHAR(50),
     -- ID từ nhà cung cấp xã hội
-    social_id VARCHAR(255)
+    social_id VARCHAR(255),
+    -- Access token phát hành trước thời điểm này bị từ chối (đổi mật khẩu)
+    tokens_valid_after TIMESTAMP
 );
 
 -- Tạo bảng free_proxies (Proxy miễn phí)
@@ -168,13 +178,19 @@ CREATE TABLE IF NOT EXISTS free_proxies (
     -- Tỷ lệ uptime (%)
     uptime DOUBLE PRECISION DEFAULT 0,
     -- Ghi chú
-    notes TEXT
+    notes TEXT,
+    -- Số lần thành công / thất bại liên tiếp gần nhất
+    consecutive_successes INTEGER NOT NULL DEFAULT 0,
+    consecutive_failures INTEGER NOT NULL DEFAULT 0,
+    -- Thời điểm kiểm tra lại tiếp theo (NULL: kiểm tra ngay)
+    next_check_at TIMESTAMP
 );
 
--- Tạo bảng access_logs (Nhật ký truy cập)
+-- Tạo bảng access_logs (Nhật ký truy cập), phân vùng theo tháng.
+-- Các phân vùng access_logs_pYYYYMM do AccessLogRetentionService tạo trước và xoá khi quá hạn lưu trữ
 CREATE TABLE IF NOT EXISTS access_logs (
     -- ID tự tăng
-    id BIGINT NOT NULL PRIMARY KEY,
+    id BIGINT NOT NULL,
     -- ID người dùng
     user_id VARCHAR(255),
     -- Tên người dùng
@@ -185,18 +201,26 @@ CREATE TABLE IF NOT EXISTS access_logs (
     user_agent TEXT,
     -- Endpoint được truy cập
     endpoint VARCHAR(500),
+    -- Mẫu route (vd: /api/users/{id})
+    route VARCHAR(500),
+    -- Loại sự kiện (REQUEST, LOGIN)
+    event_type VARCHAR(20),
+    -- Kết quả đăng nhập (SUCCESS, FAILURE)
+    outcome VARCHAR(20),
     -- Phương thức HTTP
     method VARCHAR(10),
     -- Mã trạng thái HTTP
     status_code INTEGER,
-    -- Thời gian truy cập
-    timestamp TIMESTAMP,
+    -- Thời gian truy cập (khoá phân vùng)
+    timestamp TIMESTAMP NOT NULL,
     -- ID phiên
     session_id VARCHAR(255),
     -- Trang giới thiệu
     referrer TEXT,
     -- Thời gian phản hồi (ms)
     response_time_ms BIGINT,
+    -- Kích thước phản hồi (bytes)
+    response_size BIGINT,
     -- Quốc gia
     country VARCHAR(100),
     -- Thành phố
@@ -206,8 +230,10 @@ CREATE TABLE IF NOT EXISTS access_logs (
     -- Hệ điều hành
     operating_system VARCHAR(100),
     -- Loại thiết bị (MOBILE, DESKTOP, TABLET)
-    device_type VARCHAR(50)
-);
+    device_type VARCHAR(50),
+    -- Khoá chính phải chứa khoá phân vùng
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
 
 -- Tạo bảng payment_methods (Phương thức thanh toán)
 CREATE TABLE IF NOT EXISTS payment_methods (
@@ -265,6 +291,26 @@ CREATE TABLE IF NOT EXISTS password_reset_tokens (
     used BOOLEAN DEFAULT FALSE
 );
 
+-- Tạo bảng refresh_tokens (Refresh token, chỉ lưu mã băm)
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    -- ID tự tăng
+    id BIGINT NOT NULL PRIMARY KEY,
+    -- SHA-256 của token, không được trùng lặp
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    -- Họ token, các token xoay vòng từ cùng một lần đăng nhập
+    family_id VARCHAR(36) NOT NULL,
+    -- ID người dùng
+    user_id BIGINT NOT NULL,
+    -- Thời gian hết hạn
+    expiry_date TIMESTAMP NOT NULL,
+    -- Đã sử dụng chưa
+    used BOOLEAN DEFAULT FALSE,
+    -- Đã thu hồi chưa
+    revoked BOOLEAN DEFAULT FALSE,
+    -- Thời gian tạo
+    created_at TIMESTAMP
+);
+
 SELECT setval('seq_payment_order', 2145, true);
 
 SELECT nextval('permission_role_sequence');
@@ -281,6 +327,111 @@ WHERE (extra_data::json)->>'supportTranType' = 'GD trả góp' AND service_id =
 
 
 
+-- Rollup cũ khoá theo endpoint thô: xoá để dựng lại theo route, khoảng trước đó được đọc từ log thô
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'access_log_rollups' AND column_name = 'endpoint') THEN
+        DROP TABLE access_log_rollups;
+    END IF;
+END $$;
+
+-- Tạo bảng access_log_rollups (Số liệu truy cập gộp theo phút / giờ / ngày)
+CREATE TABLE IF NOT EXISTS access_log_rollups (
+    -- MINUTE, HOUR, DAY
+    granularity VARCHAR(10) NOT NULL,
+    -- Thời điểm bắt đầu của bucket
+    bucket_start TIMESTAMP NOT NULL,
+    -- Các cột khoá, giá trị rỗng thay cho NULL
+    -- Mẫu route (vd: /api/users/{id}), log cũ chưa có route dùng endpoint
+    route VARCHAR(500) NOT NULL,
+    method VARCHAR(10) NOT NULL,
+    -- Nhóm mã trạng thái (2xx, 4xx, ...)
+    status_class VARCHAR(5) NOT NULL,
+    -- Loại sự kiện (REQUEST, LOGIN)
+    event_type VARCHAR(20) NOT NULL,
+    -- Kết quả đăng nhập (SUCCESS, FAILURE)
+    outcome VARCHAR(20) NOT NULL,
+    browser VARCHAR(100) NOT NULL,
+    device_type VARCHAR(50) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    username VARCHAR(255),
+    -- Số lượt truy cập
+    count BIGINT NOT NULL DEFAULT 0,
+    -- Tổng thời gian phản hồi (ms), chia cho count để ra trung bình
+    total_response_time_ms BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, route, method, status_class, event_type, outcome, browser, device_type,
+                 user_id)
+);
+
+-- Tạo bảng access_log_sketches (Sketch top-K và HyperLogLog theo ngày, mỗi node một dòng)
+CREATE TABLE IF NOT EXISTS access_log_sketches (
+    -- Ngày của cửa sổ
+    day DATE NOT NULL,
+    -- Node ghi checkpoint (app.node-id)
+    node_id VARCHAR(64) NOT NULL,
+    -- Bộ đếm Space-Saving dạng JSON [{key, count, error}]
+    top_endpoints TEXT NOT NULL,
+    top_users TEXT NOT NULL,
+    top_ips TEXT NOT NULL,
+    -- Thanh ghi HyperLogLog
+    distinct_users BYTEA NOT NULL,
+    distinct_ips BYTEA NOT NULL,
+    -- Thời điểm checkpoint gần nhất
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (day, node_id)
+);
+
+-- Bổ sung cột cho bảng access_logs đã tồn tại
+ALTER TABLE access_logs ADD COLUMN IF NOT EXISTS response_size BIGINT;
+ALTER TABLE access_logs ADD COLUMN IF NOT EXISTS route VARCHAR(500);
+ALTER TABLE access_logs ADD COLUMN IF NOT EXISTS event_type VARCHAR(20);
+ALTER TABLE access_logs ADD COLUMN IF NOT EXISTS outcome VARCHAR(20);
+
+-- Bổ sung mốc thu hồi token cho bảng users đã tồn tại
+ALTER TABLE users ADD COLUMN IF NOT EXISTS tokens_valid_after TIMESTAMP;
+
+-- Bổ sung cột lịch kiểm tra lại cho bảng free_proxies đã tồn tại
+ALTER TABLE free_proxies ADD COLUMN IF NOT EXISTS consecutive_successes INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE free_proxies ADD COLUMN IF NOT EXISTS consecutive_failures INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE free_proxies ADD COLUMN IF NOT EXISTS next_check_at TIMESTAMP;
+
+-- Phân loại lại các lượt đăng nhập cũ
+UPDATE access_logs
+SET event_type = 'LOGIN',
+    route = endpoint,
+    outcome = CASE WHEN status_code BETWEEN 200 AND 299 THEN 'SUCCESS' ELSE 'FAILURE' END
+WHERE event_type IS NULL AND endpoint IN ('/auth/login', '/auth/social-login', '/auth/oauth2/callback');
+
+-- Chuyển bảng access_logs cũ (chưa phân vùng) sang bảng phân vùng theo tháng.
+-- Các chỉ mục được tạo lại ở phần chỉ mục bên dưới
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE relname = 'access_logs' AND relkind = 'r') THEN
+        ALTER TABLE access_logs RENAME TO access_logs_legacy;
+        CREATE TABLE access_logs (LIKE access_logs_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (timestamp);
+        ALTER TABLE access_logs ALTER COLUMN timestamp SET NOT NULL;
+        ALTER TABLE access_logs ADD PRIMARY KEY (id, timestamp);
+        CREATE TABLE access_logs_default PARTITION OF access_logs DEFAULT;
+        FOR month_start IN
+            SELECT generate_series(date_trunc('month', MIN(timestamp)), date_trunc('month', now()), INTERVAL '1 month')::DATE
+            FROM access_logs_legacy
+        LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                           'access_logs_p' || to_char(month_start, 'YYYYMM'), month_start,
+                           (month_start + INTERVAL '1 month')::DATE);
+        END LOOP;
+        INSERT INTO access_logs SELECT * FROM access_logs_legacy WHERE timestamp IS NOT NULL;
+        DROP TABLE access_logs_legacy;
+    END IF;
+END $$;
+
+-- Phân vùng mặc định cho các dòng chưa có phân vùng tháng.
+-- Đặt sau khối chuyển đổi: bảng access_logs cũ chưa phân vùng thì chưa thể gắn phân vùng
+CREATE TABLE IF NOT EXISTS access_logs_default PARTITION OF access_logs DEFAULT;
+
 -- Tạo các chỉ mục để tối ưu truy vấn
 -- Chỉ mục cho bảng users
 CREATE INDEX idx_users_username ON users(username);
@@ -301,12 +452,18 @@ CREATE INDEX idx_free_proxies_ip_port ON free_proxies(ip_address, port);
 CREATE INDEX idx_free_proxies_protocol ON free_proxies(protocol);
 CREATE INDEX idx_free_proxies_country ON free_proxies(country);
 CREATE INDEX idx_free_proxies_is_active ON free_proxies(is_active);
+-- Lấy các proxy đến hạn kiểm tra lại theo thứ tự
+CREATE INDEX IF NOT EXISTS idx_free_proxies_next_check_at ON free_proxies(next_check_at NULLS FIRST);
 
 -- Chỉ mục cho bảng access_logs
 CREATE INDEX idx_access_logs_user_id ON access_logs(user_id);
 CREATE INDEX idx_access_logs_timestamp ON access_logs(timestamp);
 CREATE INDEX idx_access_logs_endpoint ON access_logs(endpoint);
 CREATE INDEX idx_access_logs_ip_address ON access_logs(ip_address);
+-- Đếm lượt đăng nhập chỉ cần đọc chỉ mục (index-only scan)
+CREATE INDEX idx_access_logs_event_type_timestamp_outcome ON access_logs(event_type, timestamp, outcome);
+-- Phân trang keyset lịch sử đăng nhập theo (timestamp, id) giảm dần
+CREATE INDEX idx_access_logs_event_type_timestamp_id ON access_logs(event_type, timestamp DESC, id DESC);
 
 -- Chỉ mục cho bảng payment_methods
 CREATE INDEX idx_payment_methods_name ON payment_methods(name);
@@ -316,3 +473,7 @@ CREATE INDEX idx_payment_methods_is_active ON payment_methods(is_active);
 -- Chỉ mục cho bảng password_reset_tokens
 CREATE INDEX idx_password_reset_tokens_token ON password_reset_tokens(token);
 CREATE INDEX idx_password_reset_tokens_user_id ON password_reset_tokens(user_id);
+
+-- Chỉ mục cho bảng refresh_tokens
+CREATE INDEX idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX idx_refresh_tokens_user_id ON refresh_tokens(user_id);
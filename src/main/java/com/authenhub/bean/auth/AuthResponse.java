@@ -7,5 +7,8 @@ import lombok.Data;
 @Builder
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    // Lifetime of the access token in milliseconds
+    private Long expiresIn;
     private UserInfo user;
 }
@@ -0,0 +1,20 @@
+package com.authenhub.bean.log;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoginActivity {
+    private String id;
+    private String username;
+    private String ip;
+    private String status; // success | failed
+    private String timestamp;
+    private String userAgent;
+    private String reason; // Chỉ có khi đăng nhập thất bại
+}
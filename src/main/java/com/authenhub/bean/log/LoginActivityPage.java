@@ -0,0 +1,15 @@
+package com.authenhub.bean.log;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginActivityPage {
+    private List<LoginActivity> items;
+    private String nextCursor; // null khi đã hết dữ liệu
+}
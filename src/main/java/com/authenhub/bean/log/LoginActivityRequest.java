@@ -0,0 +1,10 @@
+package com.authenhub.bean.log;
+
+import com.authenhub.bean.DateRangeRequest;
+import lombok.Data;
+
+@Data
+public class LoginActivityRequest extends DateRangeRequest {
+    private String cursor; // nextCursor của trang trước, bỏ trống để lấy trang đầu
+    private Integer limit;
+}
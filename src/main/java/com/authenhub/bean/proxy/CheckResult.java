@@ -16,4 +16,8 @@ public class CheckResult {
     private boolean isWorking;
     private long responseTimeMs;
     private Timestamp checkedAt;
+    // ProxyCheckFailure name, null when working
+    private String failureReason;
+    // When the re-check scheduler picks this proxy up again
+    private Timestamp nextCheckAt;
 }
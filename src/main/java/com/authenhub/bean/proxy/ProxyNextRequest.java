@@ -0,0 +1,20 @@
+package com.authenhub.bean.proxy;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxyNextRequest {
+    // Optional filters
+    private String protocol;
+    private String country;
+    // WEIGHTED (default), ROUND_ROBIN or STICKY
+    private String strategy;
+    // STICKY: the same key gets the same proxy while the pool does not change
+    private String key;
+}
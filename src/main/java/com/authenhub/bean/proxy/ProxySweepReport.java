@@ -0,0 +1,26 @@
+package com.authenhub.bean.proxy;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProxySweepReport {
+    private Timestamp startedAt;
+    private long durationMs;
+    private int total;
+    private long checked;
+    private long working;
+    private long failed;
+    // Not checked before the sweep deadline
+    private long skipped;
+    private double checksPerSecond;
+    private Map<String, Long> failureReasons;
+}
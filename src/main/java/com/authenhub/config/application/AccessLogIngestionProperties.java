@@ -0,0 +1,34 @@
+package com.authenhub.config.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Access log ingestion pipeline configuration.
+ * <p>
+ * Requests only enqueue into a bounded ring buffer, a single drainer thread writes batches of
+ * {@code batch-size} events or whatever is buffered every {@code flush-interval-ms}.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "access-log.ingestion")
+public class AccessLogIngestionProperties {
+
+    public enum OverflowPolicy {
+        // Overwrite the oldest unflushed event when the buffer is full
+        DROP_OLDEST,
+        // Keep only sample-rate of new events above the high watermark, drop new events when full
+        SAMPLE
+    }
+
+    private boolean enabled = true;
+    // Rounded up to a power of two
+    private int capacity = 8192;
+    private int batchSize = 500;
+    private long flushIntervalMs = 1000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    private double sampleRate = 0.1;
+    private double sampleHighWatermark = 0.75;
+    private long shutdownTimeoutMs = 10000;
+}
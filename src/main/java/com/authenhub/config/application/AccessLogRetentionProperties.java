@@ -0,0 +1,26 @@
+package com.authenhub.config.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Access log retention per storage tier, in days. Zero or less keeps the tier forever.
+ * <p>
+ * Raw logs are monthly partitions on PostgreSQL (whole partitions are dropped) and carry a TTL index on MongoDB.
+ * Rollup buckets of each granularity are pruned by the retention job every {@code interval-minutes}.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "access-log.retention")
+public class AccessLogRetentionProperties {
+
+    private boolean enabled = true;
+    private int rawDays = 90;
+    private int minuteRollupDays = 7;
+    private int hourRollupDays = 90;
+    private int dayRollupDays = 730;
+    // Monthly partitions created ahead of time so inserts never land in the default partition
+    private int premakeMonths = 2;
+    private long intervalMinutes = 60;
+}
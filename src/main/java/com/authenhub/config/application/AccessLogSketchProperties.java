@@ -0,0 +1,24 @@
+package com.authenhub.config.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Approximate analytics sketches fed by the ingestion pipeline, one window per day.
+ * <p>
+ * {@code top-capacity} counters per heavy hitter summary, HyperLogLog with 2^{@code hll-precision} registers.
+ * Each node checkpoints its own windows every {@code checkpoint-interval-seconds}; queries merge all nodes.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "access-log.sketch")
+public class AccessLogSketchProperties {
+
+    private boolean enabled = true;
+    private int topCapacity = 256;
+    private int hllPrecision = 14;
+    // Days kept in memory on this node, older windows are read back from checkpoints
+    private int memoryDays = 7;
+    private long checkpointIntervalSeconds = 60;
+}
@@ -12,6 +12,7 @@ import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -23,6 +24,7 @@ import java.util.TimeZone;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
+@EnableScheduling
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
@@ -30,7 +32,7 @@ public class ApplicationConfig {
     @Value("${spring.jackson.date-format:yyyy-MM-dd HH:mm:ss}")
     private String jacksonDateFormat;
 
-    @Value("${spring.jackson.timezone:Asia/Ho_Chi_Minh}")
+    @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}")
     private String timezone;
 
     @Bean
@@ -0,0 +1,32 @@
+package com.authenhub.config.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Proxy health check sweeps.
+ * <p>
+ * Up to {@code concurrency} checks run at once, at most {@code per-host-concurrency} of them against the same IP
+ * (many free proxies are ports of one machine). Checks not started when {@code sweep-deadline-seconds} passes are
+ * skipped and running ones are interrupted, so one sweep never overlaps the next.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "proxy.health-check")
+public class ProxyHealthCheckProperties {
+
+    private boolean enabled = true;
+    private long intervalMinutes = 60;
+    private int concurrency = 200;
+    private int perHostConcurrency = 4;
+    private long sweepDeadlineSeconds = 600;
+    private long connectTimeoutMs = 10000;
+    private long requestTimeoutMs = 10000;
+    // TCP connect (and SOCKS5 greeting) before the full probe, rejects dead proxies quickly
+    private boolean precheckEnabled = true;
+    private long precheckTimeoutMs = 1500;
+    private String testUrl = "https://api.ipify.org";
+    // Check results written per bulk update
+    private int writeBatchSize = 500;
+}
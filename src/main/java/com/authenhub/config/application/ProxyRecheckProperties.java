@@ -0,0 +1,31 @@
+package com.authenhub.config.application;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Adaptive proxy re-checks, replacing the hourly full sweep when enabled.
+ * <p>
+ * Every {@code tick-seconds} up to {@code batch-size} due proxies are checked. A working proxy is due again after
+ * {@code healthy-interval-minutes} ({@code confirm-interval-minutes} until it has {@code confirm-streak} successes
+ * in a row, doubled when slower than {@code slow-latency-ms}). A failing one backs off exponentially from
+ * {@code failure-base-minutes} up to {@code max-backoff-minutes}.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "proxy.recheck")
+public class ProxyRecheckProperties {
+
+    private boolean enabled = true;
+    private long tickSeconds = 15;
+    private int batchSize = 100;
+    private long healthyIntervalMinutes = 15;
+    private int confirmStreak = 3;
+    private long confirmIntervalMinutes = 5;
+    private long slowLatencyMs = 3000;
+    private long failureBaseMinutes = 5;
+    private long maxBackoffMinutes = 10080;
+    // +/- share of the interval, spreads proxies checked together over later ticks
+    private double jitter = 0.1;
+}
@@ -0,0 +1,84 @@
+package com.authenhub.config.filter;
+
+import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Generates request correlation ids of the form {@code <node>-<run>-<sequence>}.
+ * <p>
+ * The node id is {@code app.node-id} when configured (e.g. the StatefulSet pod name), which must be unique per
+ * instance and keys per-node checkpoints. Host names are not used: two JVMs on one host share them and they change
+ * on every pod restart. Without a configured id a random one is generated and nothing is checkpointed under it.
+ * The run part is random per start and the sequence a plain counter, so ids are unique across instances and
+ * restarts without a {@code SecureRandom} call per request.
+ */
+@Slf4j
+@Component
+public class CorrelationIdGenerator {
+
+    private static final int MAX_INBOUND_LENGTH = 64;
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9._:-]+");
+    private static final Pattern UNSAFE_NODE_CHARS = Pattern.compile("[^A-Za-z0-9._-]");
+    private static final int MAX_NODE_ID_LENGTH = 64;
+    private static final char[] NODE_ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    private final String nodeId;
+    private final boolean configuredNodeId;
+    private final String prefix;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public CorrelationIdGenerator(@Value("${app.node-id:}") String nodeId) {
+        this.configuredNodeId = StringUtils.isNotBlank(nodeId);
+        this.nodeId = configuredNodeId ? sanitize(nodeId) : randomId(6);
+        this.prefix = this.nodeId + "-" + randomId(4) + "-";
+        if (configuredNodeId) {
+            log.info("Node id is {}", this.nodeId);
+        } else {
+            log.warn("No app.node-id configured, using random node id {} until restart", this.nodeId);
+        }
+    }
+
+    /**
+     * Identifies this instance, also used to key per-node analytics checkpoints
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Whether the node id was configured, so it is unique per instance and stays the same across restarts
+     */
+    public boolean isConfiguredNodeId() {
+        return configuredNodeId;
+    }
+
+    public String next() {
+        return prefix + Long.toString(sequence.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    /**
+     * Reuse an inbound id (e.g. from {@code X-Request-Id}) when it is safe to log, otherwise create one
+     */
+    public String resolve(String inboundId) {
+        if (inboundId != null && inboundId.length() <= MAX_INBOUND_LENGTH && SAFE_ID.matcher(inboundId).matches()) {
+            return inboundId;
+        }
+        return next();
+    }
+
+    private static String randomId(int length) {
+        return NanoIdUtils.randomNanoId(NanoIdUtils.DEFAULT_NUMBER_GENERATOR, NODE_ALPHABET, length);
+    }
+
+    // Node ids end up in correlation ids and the node_id column
+    private static String sanitize(String value) {
+        String safe = UNSAFE_NODE_CHARS.matcher(value.trim()).replaceAll("-");
+        return StringUtils.left(safe, MAX_NODE_ID_LENGTH);
+    }
+}
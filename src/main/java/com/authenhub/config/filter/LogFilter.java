@@ -1,28 +1,54 @@
 package com.authenhub.config.filter;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import com.authenhub.constant.Constant;
+import com.authenhub.security.RouteAccess;
+import com.authenhub.security.RouteClassifier;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.catalina.connector.ClientAbortException;
 import org.slf4j.MDC;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.web.filter.GenericFilterBean;
 
+import java.io.IOException;
 
+
+/**
+ * Outermost request filter: assigns the correlation id used in every log line of the request
+ */
 @Slf4j
 @Configuration
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class LogFilter extends GenericFilterBean {
 
+    private final RouteClassifier routeClassifier;
+    private final CorrelationIdGenerator correlationIdGenerator;
+
     @Override
-    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) {
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        if (routeClassifier.classify((HttpServletRequest) servletRequest) == RouteAccess.IGNORED) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
         try {
             long startTime = System.currentTimeMillis();
-            MDC.put("token", NanoIdUtils.randomNanoId());
+            HttpServletRequest request = (HttpServletRequest) servletRequest;
+            String requestId = correlationIdGenerator.resolve(request.getHeader(Constant.REQUEST_ID_HEADER));
+            MDC.put(Constant.TOKEN, requestId);
+            ((HttpServletResponse) servletResponse).setHeader(Constant.REQUEST_ID_HEADER, requestId);
             filterChain.doFilter(servletRequest, servletResponse);
             long processTime = System.currentTimeMillis() - startTime;
-            String uri = ((jakarta.servlet.http.HttpServletRequest) servletRequest).getRequestURI();
+            String uri = request.getRequestURI();
             String ipClient = servletRequest.getRemoteAddr();
             log.info("Request to [{}] from IP [{}] finish in {}ms", uri, ipClient, processTime);
         } catch (ClientAbortException e) {
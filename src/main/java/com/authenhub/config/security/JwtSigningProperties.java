@@ -0,0 +1,50 @@
+package com.authenhub.config.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token signing configuration.
+ * <p>
+ * {@code HS256} keeps signing with the shared {@code jwt.secret}. {@code RS256} signs with the key
+ * identified by {@code active-key-id} and publishes every configured public key on
+ * {@code /.well-known/jwks.json}, so old keys can stay listed while tokens signed with them expire.
+ * <p>
+ * While switching from HS256 to RS256, {@code legacy-hs256} can keep accepting HS256 tokens issued
+ * before the switch. It is off by default and needs an explicit {@code issued-before} cutoff.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "jwt.signing")
+public class JwtSigningProperties {
+
+    private String algorithm = "HS256";
+    private String activeKeyId;
+    private long jwksMaxAgeSeconds = 3600;
+    private List<KeyEntry> keys = new ArrayList<>();
+    private LegacyHs256 legacyHs256 = new LegacyHs256();
+
+    public boolean isAsymmetric() {
+        return "RS256".equalsIgnoreCase(algorithm);
+    }
+
+    @Data
+    public static class LegacyHs256 {
+        private boolean enabled = false;
+        // ISO-8601 instant of the switch to RS256, e.g. 2026-10-18T00:00:00Z
+        private String issuedBefore;
+    }
+
+    @Data
+    public static class KeyEntry {
+        private String keyId;
+        // Base64 encoded PKCS#8 private key, may be empty for retired keys that only verify
+        private String privateKey;
+        // Base64 encoded X.509 public key
+        private String publicKey;
+    }
+}
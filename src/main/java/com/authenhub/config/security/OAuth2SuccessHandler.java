@@ -5,6 +5,7 @@ import com.authenhub.bean.auth.UserInfo;
 import com.authenhub.entity.User;
 import com.authenhub.filter.JwtService;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.service.RefreshTokenService;
 import com.authenhub.utils.TimestampUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
@@ -26,6 +27,7 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
     private final JwtService jwtService;
     private final ObjectMapper objectMapper;
     private final UserJpaRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
@@ -63,6 +65,8 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
         // Tạo response
         AuthResponse authResponse = AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshTokenService.issue(user))
+                .expiresIn(jwtService.getAccessTokenExpiration())
                 .user(UserInfo.fromUser(user))
                 .build();
 
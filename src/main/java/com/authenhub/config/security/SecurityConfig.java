@@ -2,6 +2,8 @@ package com.authenhub.config.security;
 
 import com.authenhub.filter.JwtAuthenticationFilter;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.security.RouteAccess;
+import com.authenhub.security.RouteClassifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -39,7 +41,11 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    // Granted by AuthorizationCache as ROLE_ADMIN
+    private static final String ADMIN_ROLE = "ADMIN";
+
     private final UserJpaRepository userRepository;
+    private final RouteClassifier routeClassifier;
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final AuthenticationSuccessHandler oAuth2SuccessHandler;
 
@@ -60,14 +66,11 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
+                        // Paths are classified from security.routes, shared with JwtAuthenticationFilter
                         requests -> requests
-                                .requestMatchers("/auth/**").permitAll()
-                                .requestMatchers("/public/**").permitAll()
-                                .requestMatchers("/admin/**").permitAll()
-                                .requestMatchers("/api/**").permitAll()
-                                .requestMatchers("/api/proxies/active").permitAll()
-                                .requestMatchers("/api/proxies").authenticated()
-                                .requestMatchers("/api/proxies/**").authenticated()
+                                .requestMatchers(routeClassifier.matcher(
+                                        RouteAccess.IGNORED, RouteAccess.PUBLIC, RouteAccess.OPTIONAL)).permitAll()
+                                .requestMatchers(routeClassifier.matcher(RouteAccess.ADMIN)).hasRole(ADMIN_ROLE)
                                 .anyRequest()
                                 .authenticated()
                 )
@@ -0,0 +1,24 @@
+package com.authenhub.config.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path prefixes for each {@link com.authenhub.security.RouteAccess} class.
+ * The longest matching prefix wins, paths matching no prefix are {@code AUTHENTICATED}.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "security.routes")
+public class SecurityRouteProperties {
+
+    private List<String> ignored = new ArrayList<>();
+    private List<String> publicPaths = new ArrayList<>();
+    private List<String> optional = new ArrayList<>();
+    private List<String> authenticated = new ArrayList<>();
+    private List<String> admin = new ArrayList<>();
+}
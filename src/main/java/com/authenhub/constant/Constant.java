@@ -8,6 +8,7 @@ public class Constant {
     private Constant() {}
 
     public static final String TOKEN = "token";
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
 
     public static final DateTimeFormatter DATE_PATH = DateTimeFormatter.ofPattern("yyyy/MM/dd");
     public static final String UNDER_SCORE = "_";
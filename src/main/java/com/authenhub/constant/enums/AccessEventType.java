@@ -0,0 +1,18 @@
+package com.authenhub.constant.enums;
+
+import java.util.Set;
+
+/**
+ * Type of a tracked request, stored on access logs so login statistics can use an index instead of a regex
+ */
+public enum AccessEventType {
+    REQUEST,
+    LOGIN;
+
+    // Route templates that are login attempts
+    public static final Set<String> LOGIN_ROUTES = Set.of("/auth/login", "/auth/social-login", "/auth/oauth2/callback");
+
+    public static AccessEventType ofRoute(String route) {
+        return route != null && LOGIN_ROUTES.contains(route) ? LOGIN : REQUEST;
+    }
+}
@@ -0,0 +1,10 @@
+package com.authenhub.constant.enums;
+
+public enum LoginOutcome {
+    SUCCESS,
+    FAILURE;
+
+    public static LoginOutcome ofStatus(int statusCode) {
+        return statusCode >= 200 && statusCode < 300 ? SUCCESS : FAILURE;
+    }
+}
@@ -0,0 +1,47 @@
+package com.authenhub.constant.enums;
+
+import com.authenhub.exception.ProxyCheckException;
+
+import javax.net.ssl.SSLException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+/**
+ * Why a proxy check did not succeed, reported per sweep.
+ */
+public enum ProxyCheckFailure {
+    UNSUPPORTED_PROTOCOL,
+    CONNECT_TIMEOUT,
+    REQUEST_TIMEOUT,
+    CONNECTION_REFUSED,
+    // CONNECT or SOCKS negotiation rejected, or the proxy does not speak the protocol
+    BAD_HANDSHAKE,
+    UNREACHABLE,
+    TLS_ERROR,
+    BAD_STATUS,
+    IO_ERROR;
+
+    public static ProxyCheckFailure of(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ProxyCheckException checkException) {
+                return checkException.getReason();
+            }
+            // Connect timeouts are raised as ProxyCheckException, what is left timed out reading
+            if (cause instanceof SocketTimeoutException) {
+                return REQUEST_TIMEOUT;
+            }
+            if (cause instanceof ConnectException) {
+                return CONNECTION_REFUSED;
+            }
+            if (cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return UNREACHABLE;
+            }
+            if (cause instanceof SSLException) {
+                return TLS_ERROR;
+            }
+        }
+        return IO_ERROR;
+    }
+}
@@ -2,12 +2,16 @@ package com.authenhub.controller;
 
 import com.authenhub.bean.UserUpdateRequest;
 import com.authenhub.bean.common.ApiResponse;
+import com.authenhub.bean.log.LoginActivity;
 import com.authenhub.bean.user.UserSearchResponse;
 import com.authenhub.entity.User;
 import com.authenhub.filter.JwtService;
 import com.authenhub.repository.jpa.RoleJpaRepository;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.event.AccessLogIngestionPipeline;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.service.AccessLogService;
+import com.authenhub.service.AnalyticsResultCache;
 import com.authenhub.service.UserManagementService;
 import com.authenhub.service.UserService;
 import com.authenhub.utils.TimestampUtils;
@@ -30,6 +34,9 @@ public class AdminController {
     private final RoleJpaRepository roleRepository;
     private final UserJpaRepository userRepository;
     private final AccessLogService accessLogService;
+    private final AuthorizationCache authorizationCache;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final AccessLogIngestionPipeline accessLogIngestionPipeline;
     private final UserManagementService userManagementService;
 
     @GetMapping("/users")
@@ -185,7 +192,7 @@ public class AdminController {
             long newUsers = userService.countUsersByCreatedAtBetween(startDate, endDate);
 
             // Get login statistics from access logs
-            Map<String, Object> accessStats = accessLogService.getAccessStats(startDate, endDate);
+            Map<String, Object> accessStats = accessLogService.countLogins(startDate, endDate);
 
             // Create statistics response
             Map<String, Object> statistics = new HashMap<>();
@@ -237,11 +244,26 @@ public class AdminController {
         }
 
         // Get login activity from access logs
-        List<Map<String, Object>> loginActivity = accessLogService.getLoginActivity(startDate, endDate);
+        List<LoginActivity> loginActivity = accessLogService.getLoginActivity(startDate, endDate);
 
         return ApiResponse.success(loginActivity);
     }
 
+    @GetMapping("/authorization-cache/stats")
+    public ApiResponse<?> getAuthorizationCacheStats() {
+        return ApiResponse.success(authorizationCache.getStatistics());
+    }
+
+    @GetMapping("/analytics-cache/stats")
+    public ApiResponse<?> getAnalyticsCacheStats() {
+        return ApiResponse.success(analyticsResultCache.getStatistics());
+    }
+
+    @GetMapping("/access-log/ingestion/stats")
+    public ApiResponse<?> getAccessLogIngestionStats() {
+        return ApiResponse.success(accessLogIngestionPipeline.getStatistics());
+    }
+
     private static class DashboardData {
         private final long totalUsers;
         private final long adminUsers;
@@ -2,12 +2,24 @@ package com.authenhub.controller;
 
 import com.authenhub.bean.DateRangeRequest;
 import com.authenhub.bean.common.ApiResponse;
+import com.authenhub.bean.log.LoginActivityRequest;
+import com.authenhub.constant.enums.ApiResponseCode;
+import com.authenhub.event.LiveAnalyticsPublisher;
+import com.authenhub.event.LiveTrafficMetrics;
+import com.authenhub.service.AccessLogSketchService;
 import com.authenhub.service.interfaces.IAccessLogService;
 import com.authenhub.service.interfaces.IUserService;
 import com.authenhub.utils.TimestampUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +34,9 @@ public class AnalyticsController {
 
     private final IAccessLogService accessLogService;
     private final IUserService userService;
+    private final ObjectMapper objectMapper;
+    private final AccessLogSketchService accessLogSketchService;
+    private final LiveTrafficMetrics liveTrafficMetrics;
 
     /**
      * Get dashboard data
@@ -43,6 +58,17 @@ public class AnalyticsController {
         return ApiResponse.success(data);
     }
 
+    /**
+     * Get the current live traffic snapshot, the same payload pushed to {@value LiveAnalyticsPublisher#TOPIC}
+     * every second, for dashboards to render before the first push arrives
+     *
+     * @return live traffic snapshot
+     */
+    @GetMapping("/live")
+    public ApiResponse<?> getLiveTraffic() {
+        return ApiResponse.success(liveTrafficMetrics.snapshot());
+    }
+
     /**
      * Get access stats
      *
@@ -95,6 +121,31 @@ public class AnalyticsController {
         return ApiResponse.success(dailyVisits);
     }
 
+    /**
+     * Get visit counts per hour, day or week
+     *
+     * @param request date range request
+     * @param unit    hour, day or week
+     * @return visit counts per bucket
+     */
+    @PostMapping("/visits")
+    public ApiResponse<?> getVisits(@RequestBody DateRangeRequest request,
+                                    @RequestParam(defaultValue = "day") String unit) {
+        Timestamp startDate = request.getStartDate();
+        Timestamp endDate = request.getEndDate();
+
+        // Default to last 30 days if no dates provided
+        if (startDate == null) {
+            startDate = TimestampUtils.addDays(TimestampUtils.now(), -30);
+        }
+
+        if (endDate == null) {
+            endDate = TimestampUtils.now();
+        }
+
+        return ApiResponse.success(accessLogService.countByPeriod(startDate, endDate, unit));
+    }
+
     /**
      * Get login activity
      *
@@ -119,6 +170,70 @@ public class AnalyticsController {
         return ApiResponse.success(accessLogService.getLoginActivity(startDate, endDate));
     }
 
+    /**
+     * Get one page of login activity, newest first
+     *
+     * @param request date range, cursor of the previous page and page size
+     * @return login activity page with nextCursor
+     */
+    @PostMapping("/login-activity/page")
+    public ApiResponse<?> getLoginActivityPage(@RequestBody LoginActivityRequest request) {
+        Timestamp startDate = request.getStartDate();
+        Timestamp endDate = request.getEndDate();
+
+        // Default to last 30 days if no dates provided
+        if (startDate == null) {
+            startDate = TimestampUtils.addDays(TimestampUtils.now(), -30);
+        }
+
+        if (endDate == null) {
+            endDate = TimestampUtils.now();
+        }
+
+        int limit = request.getLimit() != null ? request.getLimit() : 100;
+        return ApiResponse.success(accessLogService.getLoginActivityPage(startDate, endDate, request.getCursor(), limit));
+    }
+
+    /**
+     * Stream login activity of the whole range as JSON. The body has the same shape as ApiResponse
+     * but rows are written as they are read, so memory stays flat however wide the range is.
+     *
+     * @param request date range request
+     * @param response servlet response
+     */
+    @PostMapping(value = "/login-activity/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public void streamLoginActivity(@RequestBody DateRangeRequest request, HttpServletResponse response) throws IOException {
+        Timestamp startDate = request.getStartDate();
+        Timestamp endDate = request.getEndDate();
+
+        // Default to last 30 days if no dates provided
+        if (startDate == null) {
+            startDate = TimestampUtils.addDays(TimestampUtils.now(), -30);
+        }
+
+        if (endDate == null) {
+            endDate = TimestampUtils.now();
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartObject();
+            generator.writeStringField("code", ApiResponseCode.SUCCESS_CODE.getCode());
+            generator.writeStringField("message", ApiResponseCode.SUCCESS_CODE.getMessage());
+            generator.writeArrayFieldStart("data");
+            accessLogService.forEachLoginActivity(startDate, endDate, activity -> {
+                try {
+                    generator.writeObject(activity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
     /**
      * Get top endpoints
      *
@@ -142,6 +257,42 @@ public class AnalyticsController {
         return ApiResponse.success(accessLogService.getTopEndpoints(startDate, endDate));
     }
 
+    /**
+     * Get approximate top endpoints, users and IPs plus unique users and IPs from the streaming sketches
+     *
+     * @param request date range request, widened to whole days
+     * @param limit rows per top list
+     * @return approximate stats
+     */
+    @PostMapping("/approximate")
+    public ApiResponse<?> getApproximateStats(@RequestBody DateRangeRequest request,
+                                              @RequestParam(defaultValue = "10") int limit) {
+        Timestamp startDate = request.getStartDate();
+        Timestamp endDate = request.getEndDate();
+
+        // Default to last 30 days if no dates provided
+        if (startDate == null) {
+            startDate = TimestampUtils.addDays(TimestampUtils.now(), -30);
+        }
+
+        if (endDate == null) {
+            endDate = TimestampUtils.now();
+        }
+
+        return ApiResponse.success(accessLogSketchService.getApproximateStats(startDate, endDate, limit));
+    }
+
+    /**
+     * Get latency percentiles per endpoint, recorded by the serving node since it started
+     *
+     * @param limit number of endpoints
+     * @return node id, start time and endpoint latency histograms
+     */
+    @GetMapping("/endpoint-latency")
+    public ApiResponse<?> getEndpointLatency(@RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.success(accessLogService.getEndpointLatency(limit));
+    }
+
     /**
      * Get top users
      *
@@ -2,9 +2,11 @@ package com.authenhub.controller;
 
 import com.authenhub.bean.*;
 import com.authenhub.bean.auth.AuthRequest;
+import com.authenhub.bean.auth.RefreshTokenRequest;
 import com.authenhub.bean.common.ApiResponse;
 import com.authenhub.filter.JwtService;
 import com.authenhub.service.interfaces.IAuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -39,13 +41,23 @@ public class AuthController {
     }
 
     @PostMapping("/refresh-token")
-    public ApiResponse<?> refreshToken(@RequestHeader("Authorization") String token) {
-        return ApiResponse.success(authService.refreshToken(token));
+    public ApiResponse<?> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        return ApiResponse.success(authService.refreshToken(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ApiResponse<?> logout(@RequestHeader("Authorization") String token,
+                                 @RequestBody(required = false) RefreshTokenRequest request,
+                                 HttpServletRequest httpRequest) {
+        authService.logout(token, jwtService.extractAllClaims(httpRequest, token),
+                request != null ? request.getRefreshToken() : null);
+        return ApiResponse.success(null);
     }
 
     @GetMapping("/me")
-    public ApiResponse<?> getCurrentUser(@RequestHeader("Authorization") String token) {
-        return ApiResponse.success(authService.getCurrentUser(token));
+    public ApiResponse<?> getCurrentUser(@RequestHeader("Authorization") String token, HttpServletRequest request) {
+        // Reuse the claims the JWT filter already verified instead of parsing the token again
+        return ApiResponse.success(authService.getCurrentUser(jwtService.extractAllClaims(request, token)));
     }
 
     @PostMapping("/oauth2/callback")
@@ -74,12 +86,9 @@ public class AuthController {
     }
 
     @GetMapping("/check-role")
-    public ApiResponse<?> checkRole(@RequestHeader("Authorization") String token) {
-        // Extract token from Authorization header
-        String jwt = token.substring(7); // Remove "Bearer " prefix
-
-        // Get user role from token
-        String role = jwtService.extractRole(jwt);
+    public ApiResponse<?> checkRole(@RequestHeader("Authorization") String token, HttpServletRequest request) {
+        // Get user role from the claims parsed by the JWT filter
+        String role = jwtService.extractRole(jwtService.extractAllClaims(request, token));
         boolean isAdmin = role != null && role.equals("ROLE_ADMIN");
 
         Map<String, Object> data = new HashMap<>();
@@ -3,11 +3,17 @@ package com.authenhub.controller;
 import com.authenhub.bean.common.ApiResponse;
 import com.authenhub.bean.proxy.*;
 import com.authenhub.service.FreeProxyService;
+import com.authenhub.service.ProxyPool;
+import com.authenhub.service.ProxyRecheckScheduler;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/proxies")
@@ -15,6 +21,8 @@ import java.util.List;
 public class FreeProxyController {
 
     private final FreeProxyService proxyService;
+    private final ProxyRecheckScheduler recheckScheduler;
+    private final ProxyPool proxyPool;
 
     @PostMapping
     public ApiResponse<?> getAllProxiesPost() {
@@ -74,6 +82,33 @@ public class FreeProxyController {
         return ApiResponse.success(result);
     }
 
+    @GetMapping("/health-check/report")
+    public ApiResponse<?> getLastSweepReport() {
+        Map<String, Object> report = new HashMap<>();
+        report.put("lastSweep", proxyService.getLastSweepReport());
+        report.put("recheck", recheckScheduler.getStatistics());
+        report.put("pool", proxyPool.getStatistics());
+        return ApiResponse.success(report);
+    }
+
+    /**
+     * Full sweep on demand, the only way to get one while the adaptive re-check replaces the scheduled sweep
+     */
+    @PostMapping("/health-check/sweep")
+    public ApiResponse<?> sweepAllProxies() {
+        ProxySweepReport report = proxyService.checkAllProxies();
+        if (report == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Proxy sweep already running");
+        }
+        return ApiResponse.success(report);
+    }
+
+    @PostMapping("/next")
+    public ApiResponse<?> nextProxy(@RequestBody ProxyNextRequest request) {
+        ProxyResponse proxy = proxyService.nextProxy(request);
+        return ApiResponse.success(proxy);
+    }
+
     @GetMapping("/protocol/{protocol}")
     public ApiResponse<?> getProxiesByProtocol(@PathVariable String protocol) {
         List<ProxyResponse> proxies = proxyService.getProxiesByProtocol(protocol);
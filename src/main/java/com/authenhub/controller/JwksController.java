@@ -0,0 +1,31 @@
+package com.authenhub.controller;
+
+import com.authenhub.config.security.JwtSigningProperties;
+import com.authenhub.filter.JwtKeyProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the token verification keys so downstream services can verify tokens locally.
+ * The response is a plain JWK Set, not wrapped in {@code ApiResponse}, as JOSE clients expect.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyProvider jwtKeyProvider;
+    private final JwtSigningProperties signingProperties;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(signingProperties.getJwksMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic())
+                .body(jwtKeyProvider.getJwks());
+    }
+}
@@ -6,6 +6,7 @@ import com.authenhub.bean.common.ApiResponse;
 import com.authenhub.entity.User;
 import com.authenhub.filter.JwtService;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.service.RefreshTokenService;
 import com.authenhub.utils.TimestampUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -23,6 +24,7 @@ public class OAuth2Controller {
 
     private final JwtService jwtService;
     private final UserJpaRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
 
     @GetMapping("/callback")
     public ApiResponse<?> oauth2Callback(@AuthenticationPrincipal OAuth2User principal) {
@@ -59,6 +61,8 @@ public class OAuth2Controller {
         // Tạo response
         AuthResponse authResponse = AuthResponse.builder()
                 .token(token)
+                .refreshToken(refreshTokenService.issue(user))
+                .expiresIn(jwtService.getAccessTokenExpiration())
                 .user(UserInfo.fromUser(user))
                 .build();
 
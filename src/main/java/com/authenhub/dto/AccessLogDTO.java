@@ -1,5 +1,7 @@
 package com.authenhub.dto;
 
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,12 +20,18 @@ public class AccessLogDTO {
     private String ipAddress;
     private String userAgent;
     private String endpoint;
+    // Route template, e.g. /api/users/{id}
+    private String route;
+    private AccessEventType eventType;
+    // Only set for LOGIN events
+    private LoginOutcome outcome;
     private String method;
     private int statusCode;
     private Timestamp timestamp;
     private String sessionId;
     private String referrer;
     private long responseTimeMs;
+    private long responseSize;
 
     private String country;
     private String city;
@@ -67,11 +67,22 @@ public class FreeProxy {
     @Column(name = "notes", length = 1000)
     private String notes;
 
+    @Column(name = "consecutive_successes")
+    private int consecutiveSuccesses;
+
+    @Column(name = "consecutive_failures")
+    private int consecutiveFailures;
+
+    @Column(name = "next_check_at")
+    private Timestamp nextCheckAt;
+
     /**
      * Convert from MongoDB entity to JPA entity
      */
     public static FreeProxy fromMongo(com.authenhub.entity.mongo.FreeProxy proxy) {
         return FreeProxy.builder()
+                // Keep the id of a proxy read from PostgreSQL so save() updates the row instead of inserting
+                .id(proxy.getId() != null && proxy.getId().matches("\\d{1,18}") ? Long.valueOf(proxy.getId()) : null)
                 .ipAddress(proxy.getIpAddress())
                 .port(proxy.getPort())
                 .protocol(proxy.getProtocol())
@@ -87,6 +98,9 @@ public class FreeProxy {
                 .failCount(proxy.getFailCount())
                 .uptime(proxy.getUptime())
                 .notes(proxy.getNotes())
+                .consecutiveSuccesses(proxy.getConsecutiveSuccesses())
+                .consecutiveFailures(proxy.getConsecutiveFailures())
+                .nextCheckAt(proxy.getNextCheckAt())
                 .build();
     }
 
@@ -111,6 +125,9 @@ public class FreeProxy {
         proxy.setFailCount(this.failCount);
         proxy.setUptime(this.uptime);
         proxy.setNotes(this.notes);
+        proxy.setConsecutiveSuccesses(this.consecutiveSuccesses);
+        proxy.setConsecutiveFailures(this.consecutiveFailures);
+        proxy.setNextCheckAt(this.nextCheckAt);
         return proxy;
     }
 }
@@ -0,0 +1,55 @@
+package com.authenhub.entity;
+
+import com.authenhub.utils.TimestampUtils;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_token_seq")
+    @SequenceGenerator(name = "refresh_token_seq", sequenceName = "refresh_token_sequence", allocationSize = 1)
+    @Column(name = "id", unique = true, nullable = false)
+    private Long id;
+
+    // SHA-256 of the token, the raw value is only ever returned to the client
+    @Column(name = "token_hash", unique = true, nullable = false)
+    private String tokenHash;
+
+    // All tokens rotated from the same login share a family, reuse of one revokes the family
+    @Column(name = "family_id", nullable = false)
+    private String familyId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "expiry_date", nullable = false)
+    private Timestamp expiryDate;
+
+    @Column(name = "used")
+    private boolean used;
+
+    @Column(name = "revoked")
+    private boolean revoked;
+
+    @Column(name = "created_at")
+    private Timestamp createdAt;
+
+    /**
+     * Check if token is expired
+     */
+    public boolean isExpired() {
+        return TimestampUtils.now().after(expiryDate);
+    }
+}
@@ -71,6 +71,10 @@ public class User implements UserDetails {
     @Column(name = "social_id")
     private String socialId;
 
+    // Access tokens issued before this instant are rejected (set when the password changes)
+    @Column(name = "tokens_valid_after")
+    private Timestamp tokensValidAfter;
+
     // Helper method to check if user has a specific role
     public boolean hasRole(Long roleId) {
         return this.roleId != null && this.roleId.equals(roleId);
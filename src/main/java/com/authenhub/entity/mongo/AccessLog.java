@@ -1,5 +1,7 @@
 package com.authenhub.entity.mongo;
 
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -16,12 +18,18 @@ public class AccessLog {
     private String ipAddress;
     private String userAgent;
     private String endpoint;
+    // Route template, e.g. /api/users/{id}
+    private String route;
+    private AccessEventType eventType;
+    // Only set for LOGIN events
+    private LoginOutcome outcome;
     private String method;
     private int statusCode;
     private Timestamp timestamp;
     private String sessionId;
     private String referrer;
     private long responseTimeMs;
+    private long responseSize;
 
     // For analytics
     private String country;
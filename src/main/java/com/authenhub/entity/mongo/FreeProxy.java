@@ -26,4 +26,7 @@ public class FreeProxy {
     private int failCount;
     private double uptime; // Percentage of successful checks
     private String notes;
+    private int consecutiveSuccesses;
+    private int consecutiveFailures;
+    private Timestamp nextCheckAt; // null: due now
 }
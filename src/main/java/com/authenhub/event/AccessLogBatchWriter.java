@@ -0,0 +1,63 @@
+package com.authenhub.event;
+
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.dto.AccessLogDTO;
+import com.authenhub.entity.mongo.AccessLog;
+import com.authenhub.mapper.AccessLogMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes a batch of access logs in one round trip: {@code insertMany} on MongoDB, a JDBC batch on PostgreSQL
+ */
+@Component
+@RequiredArgsConstructor
+public class AccessLogBatchWriter {
+
+    private static final String INSERT_SQL = ""
+            + "INSERT INTO access_logs (id, user_id, username, ip_address, user_agent, endpoint, route, event_type, outcome, method, status_code, "
+            + "timestamp, session_id, referrer, response_time_ms, response_size, country, city, browser, operating_system, device_type) "
+            + "VALUES (nextval('access_log_sequence'), ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final MongoTemplate mongoTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final AccessLogMapper accessLogMapper;
+    private final DatabaseSwitcherConfig databaseConfig;
+
+    public void write(List<AccessLogDTO> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (databaseConfig.isMongoActive()) {
+            List<AccessLog> documents = batch.stream().map(accessLogMapper::toMongoEntity).toList();
+            mongoTemplate.insert(documents, AccessLog.class);
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, log) -> {
+            ps.setString(1, log.getUserId());
+            ps.setString(2, log.getUsername());
+            ps.setString(3, log.getIpAddress());
+            ps.setString(4, log.getUserAgent());
+            ps.setString(5, log.getEndpoint());
+            ps.setString(6, log.getRoute());
+            ps.setString(7, log.getEventType() != null ? log.getEventType().name() : null);
+            ps.setString(8, log.getOutcome() != null ? log.getOutcome().name() : null);
+            ps.setString(9, log.getMethod());
+            ps.setInt(10, log.getStatusCode());
+            ps.setTimestamp(11, log.getTimestamp());
+            ps.setString(12, log.getSessionId());
+            ps.setString(13, log.getReferrer());
+            ps.setLong(14, log.getResponseTimeMs());
+            ps.setLong(15, log.getResponseSize());
+            ps.setString(16, log.getCountry());
+            ps.setString(17, log.getCity());
+            ps.setString(18, log.getBrowser());
+            ps.setString(19, log.getOperatingSystem());
+            ps.setString(20, log.getDeviceType());
+        });
+    }
+}
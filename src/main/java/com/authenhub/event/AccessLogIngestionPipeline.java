@@ -0,0 +1,207 @@
+package com.authenhub.event;
+
+import com.authenhub.config.application.AccessLogIngestionProperties;
+import com.authenhub.config.application.AccessLogIngestionProperties.OverflowPolicy;
+import com.authenhub.dto.AccessLogDTO;
+import com.authenhub.service.AccessLogRollupService;
+import com.authenhub.service.AccessLogSketchService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log ingestion: request threads {@link #offer} into a ring buffer, one drainer thread flushes
+ * batches through {@link AccessLogBatchWriter} when a batch is full or the flush interval elapsed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessLogIngestionPipeline {
+
+    private final AccessLogBatchWriter batchWriter;
+    private final AccessLogRollupService accessLogRollupService;
+    private final AccessLogSketchService accessLogSketchService;
+    private final UserAgentClassifier userAgentClassifier;
+    private final AccessLogIngestionProperties properties;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder flushedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder rollupFailures = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private AccessLogRingBuffer buffer;
+    private Thread drainer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        buffer = new AccessLogRingBuffer(properties.getCapacity());
+        if (!properties.isEnabled()) {
+            log.info("Access log ingestion pipeline is disabled");
+            return;
+        }
+        running = true;
+        drainer = new Thread(this::drain, "AccessLogDrainer");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Access log ingestion pipeline started with capacity {}, batch size {}, policy {}",
+                buffer.capacity(), properties.getBatchSize(), properties.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (drainer == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(properties.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Access log ingestion pipeline stopped, {} events left unflushed", buffer.size());
+    }
+
+    /**
+     * Enqueue an access log, never blocks the calling request thread
+     *
+     * @return false if the event was rejected by the overflow policy
+     */
+    public boolean offer(AccessLogDTO accessLog) {
+        if (!properties.isEnabled()) {
+            // Pipeline switched off: write straight through on the caller thread
+            userAgentClassifier.enrich(accessLog);
+            batchWriter.write(List.of(accessLog));
+            accessLogRollupService.fold(List.of(accessLog));
+            accessLogSketchService.record(List.of(accessLog));
+            return true;
+        }
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        if (properties.getOverflowPolicy() == OverflowPolicy.SAMPLE && !admitSample()) {
+            return false;
+        }
+        if (buffer.offer(accessLog)) {
+            dropped.increment();
+        }
+        accepted.increment();
+        if (buffer.size() >= properties.getBatchSize()) {
+            LockSupport.unpark(drainer);
+        }
+        return true;
+    }
+
+    private boolean admitSample() {
+        int size = buffer.size();
+        if (size >= buffer.capacity()) {
+            dropped.increment();
+            return false;
+        }
+        if (size >= buffer.capacity() * properties.getSampleHighWatermark()
+                && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            sampledOut.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void drain() {
+        int batchSize = properties.getBatchSize();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        List<AccessLogDTO> batch = new ArrayList<>(batchSize);
+        long batchStarted = System.nanoTime();
+        while (running || buffer.size() > 0 || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    batchStarted = System.nanoTime();
+                }
+                buffer.drainTo(batch, batchSize - batch.size());
+                long waited = System.nanoTime() - batchStarted;
+                if (batch.size() >= batchSize || (!batch.isEmpty() && (waited >= intervalNanos || !running))) {
+                    flush(batch);
+                    batch.clear();
+                    continue;
+                }
+                if (!running) {
+                    // Nothing drainable although the buffer is not empty: a producer is mid-write,
+                    // wait for it briefly, the buffer skips the slot once it has stalled for too long
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+                    continue;
+                }
+                LockSupport.parkNanos(this, batch.isEmpty() ? intervalNanos : intervalNanos - waited);
+            } catch (Exception e) {
+                log.error("[AccessLogIngestionPipeline] drainer loop have exception", e);
+                failedEvents.add(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<AccessLogDTO> batch) {
+        long startTime = System.nanoTime();
+        try {
+            batch.forEach(userAgentClassifier::enrich);
+            batchWriter.write(batch);
+            flushedEvents.add(batch.size());
+        } catch (Exception e) {
+            failedEvents.add(batch.size());
+            log.error("[AccessLogIngestionPipeline] flush {} access logs have exception", batch.size(), e);
+            return;
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            flushCount.increment();
+            flushNanos.add(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+        try {
+            accessLogRollupService.fold(batch);
+        } catch (Exception e) {
+            rollupFailures.add(batch.size());
+            log.error("[AccessLogIngestionPipeline] fold {} access logs into rollups have exception", batch.size(), e);
+        }
+        accessLogSketchService.record(batch);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long flushes = flushCount.sum();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", running);
+        statistics.put("overflowPolicy", properties.getOverflowPolicy());
+        statistics.put("queueDepth", buffer.size());
+        statistics.put("capacity", buffer.capacity());
+        statistics.put("accepted", accepted.sum());
+        statistics.put("dropped", dropped.sum());
+        statistics.put("sampledOut", sampledOut.sum());
+        statistics.put("skippedSlots", buffer.skipped());
+        statistics.put("flushedEvents", flushedEvents.sum());
+        statistics.put("failedEvents", failedEvents.sum());
+        statistics.put("flushCount", flushes);
+        statistics.put("rollupFailures", rollupFailures.sum());
+        statistics.put("lastFlushLatencyMs", TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get()));
+        statistics.put("maxFlushLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+        statistics.put("avgFlushLatencyMs", flushes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(flushNanos.sum() / flushes));
+        return statistics;
+    }
+}
@@ -0,0 +1,124 @@
+package com.authenhub.event;
+
+import com.authenhub.dto.AccessLogDTO;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer.
+ * <p>
+ * Producers never block: when the ring is full a new event overwrites the oldest unread one and
+ * {@link #offer} reports it. Each slot keeps the sequence it was written for, so the consumer can tell a
+ * slot that is claimed but not yet written (stop and retry later) from one overwritten by a later lap (skip).
+ * A producer that was lapped before it wrote drops its own event instead of overwriting the newer one, and a
+ * slot that stays unwritten longer than {@link #STALL_TIMEOUT_NANOS} is skipped so the consumer cannot stall.
+ */
+class AccessLogRingBuffer {
+
+    private record Entry(long sequence, AccessLogDTO value) {
+    }
+
+    // A claimed slot is normally written within microseconds, anything longer is a lost or descheduled producer
+    static final long STALL_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only written by the consumer thread, volatile so size() is readable from anywhere
+    private volatile long head;
+    private volatile long skipped;
+    private long stalledHead = -1;
+    private long stalledSinceNanos;
+
+    AccessLogRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return {@code true} if an unread event was overwritten to make room
+     */
+    boolean offer(AccessLogDTO value) {
+        long sequence = tail.getAndIncrement();
+        int index = index(sequence);
+        Entry entry = new Entry(sequence, value);
+        while (true) {
+            Entry previous = slots.get(index);
+            if (previous != null && previous.sequence() > sequence) {
+                // Lapped before writing, the slot already holds a newer event: drop ours
+                return true;
+            }
+            if (slots.compareAndSet(index, previous, entry)) {
+                return previous != null;
+            }
+        }
+    }
+
+    /**
+     * Move up to {@code maxElements} events into {@code target}, consumer thread only
+     */
+    int drainTo(List<AccessLogDTO> target, int maxElements) {
+        int drained = 0;
+        long published = tail.get();
+        if (published - head > capacity()) {
+            // Producers lapped us, everything before this point has been overwritten
+            head = published - capacity();
+        }
+        while (drained < maxElements && head < published) {
+            int index = index(head);
+            Entry entry = slots.get(index);
+            if (entry == null || entry.sequence() < head) {
+                // Claimed by a producer that has not written yet, give up on it after the stall timeout
+                if (!isStalled(head)) {
+                    break;
+                }
+                head++;
+                skipped++;
+                continue;
+            }
+            if (entry.sequence() > head) {
+                head++;
+                continue;
+            }
+            if (slots.compareAndSet(index, entry, null)) {
+                target.add(entry.value());
+                drained++;
+                head++;
+            }
+        }
+        return drained;
+    }
+
+    private boolean isStalled(long sequence) {
+        long now = System.nanoTime();
+        if (stalledHead != sequence) {
+            stalledHead = sequence;
+            stalledSinceNanos = now;
+            return false;
+        }
+        return now - stalledSinceNanos >= STALL_TIMEOUT_NANOS;
+    }
+
+    /**
+     * @return number of slots skipped because their producer never wrote them
+     */
+    long skipped() {
+        return skipped;
+    }
+
+    int size() {
+        return (int) Math.min(Math.max(0, tail.get() - head), capacity());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+}
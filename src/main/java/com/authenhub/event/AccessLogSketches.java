@@ -0,0 +1,78 @@
+package com.authenhub.event;
+
+import com.authenhub.dto.AccessLogDTO;
+import lombok.Getter;
+
+/**
+ * Streaming sketches of one window of access logs: heavy hitters of routes, users and IPs plus distinct users
+ * and IPs. The drainer records into it while queries and checkpoints work on {@link #copy()}s.
+ */
+@Getter
+public class AccessLogSketches {
+
+    private final SpaceSavingSketch topEndpoints;
+    private final SpaceSavingSketch topUsers;
+    private final SpaceSavingSketch topIps;
+    private final HyperLogLog distinctUsers;
+    private final HyperLogLog distinctIps;
+    @Getter(lombok.AccessLevel.NONE)
+    private long version;
+
+    public AccessLogSketches(int capacity, int precision) {
+        this(new SpaceSavingSketch(capacity), new SpaceSavingSketch(capacity), new SpaceSavingSketch(capacity),
+                new HyperLogLog(precision), new HyperLogLog(precision));
+    }
+
+    public AccessLogSketches(SpaceSavingSketch topEndpoints, SpaceSavingSketch topUsers, SpaceSavingSketch topIps,
+                             HyperLogLog distinctUsers, HyperLogLog distinctIps) {
+        this.topEndpoints = topEndpoints;
+        this.topUsers = topUsers;
+        this.topIps = topIps;
+        this.distinctUsers = distinctUsers;
+        this.distinctIps = distinctIps;
+    }
+
+    public synchronized void record(AccessLogDTO accessLog) {
+        // Route templates keep /users/1 and /users/2 in one counter
+        String endpoint = accessLog.getRoute() != null ? accessLog.getRoute() : accessLog.getEndpoint();
+        if (endpoint != null) {
+            topEndpoints.add(endpoint);
+        }
+        if (accessLog.getUsername() != null) {
+            topUsers.add(accessLog.getUsername());
+            distinctUsers.add(accessLog.getUserId() != null ? accessLog.getUserId() : accessLog.getUsername());
+        }
+        if (accessLog.getIpAddress() != null) {
+            topIps.add(accessLog.getIpAddress());
+            distinctIps.add(accessLog.getIpAddress());
+        }
+        version++;
+    }
+
+    public void merge(AccessLogSketches other) {
+        AccessLogSketches snapshot = other.copy();
+        synchronized (this) {
+            topEndpoints.merge(snapshot.topEndpoints);
+            topUsers.merge(snapshot.topUsers);
+            topIps.merge(snapshot.topIps);
+            distinctUsers.merge(snapshot.distinctUsers);
+            distinctIps.merge(snapshot.distinctIps);
+        }
+    }
+
+    public synchronized AccessLogSketches copy() {
+        return new AccessLogSketches(
+                new SpaceSavingSketch(topEndpoints.getCapacity(), topEndpoints.entries()),
+                new SpaceSavingSketch(topUsers.getCapacity(), topUsers.entries()),
+                new SpaceSavingSketch(topIps.getCapacity(), topIps.entries()),
+                HyperLogLog.fromBytes(distinctUsers.toBytes()),
+                HyperLogLog.fromBytes(distinctIps.toBytes()));
+    }
+
+    /**
+     * Incremented on every record, a checkpoint is due when it moved past the last saved version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+}
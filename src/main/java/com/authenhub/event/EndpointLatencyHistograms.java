@@ -0,0 +1,65 @@
+package com.authenhub.event;
+
+import com.authenhub.utils.TimestampUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory latency histograms per endpoint since startup, keyed by HTTP method and route pattern.
+ * The number of distinct endpoints is capped so unmatched or scanning URLs cannot grow the map forever.
+ */
+@Component
+public class EndpointLatencyHistograms {
+
+    public static final String UNMATCHED_ENDPOINT = "UNMATCHED";
+    static final String OTHER_ENDPOINT = "OTHER";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final int maxEndpoints;
+    private final Timestamp startedAt = TimestampUtils.now();
+
+    public EndpointLatencyHistograms(@Value("${access-log.latency.max-endpoints:500}") int maxEndpoints) {
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    /**
+     * @return when recording started, the histograms cover everything since then
+     */
+    public Timestamp getStartedAt() {
+        return startedAt;
+    }
+
+    public void record(String method, String endpoint, long latencyMs) {
+        String key = method + " " + endpoint;
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.size() < maxEndpoints
+                    ? histograms.computeIfAbsent(key, k -> new LatencyHistogram())
+                    : histograms.computeIfAbsent(OTHER_ENDPOINT, k -> new LatencyHistogram());
+        }
+        histogram.record(latencyMs);
+    }
+
+    /**
+     * @param limit number of busiest endpoints to return
+     */
+    public List<Map<String, Object>> getTopEndpoints(int limit) {
+        return histograms.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> e) -> e.getValue().getCount()).reversed())
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> endpoint = new LinkedHashMap<>();
+                    endpoint.put("_id", entry.getKey());
+                    endpoint.putAll(entry.getValue().snapshot());
+                    return endpoint;
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.authenhub.event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket latency histogram, lock-free to record and cheap enough to update on every request.
+ * Percentiles are interpolated inside the bucket that holds the requested rank.
+ */
+public class LatencyHistogram {
+
+    // Upper bounds in milliseconds, the last bucket collects everything above
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long latencyMs) {
+        long value = Math.max(0, latencyMs);
+        buckets[bucketIndex(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Add the counts of another histogram, e.g. to combine per-second histograms into a window
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i].add(other.buckets[i].sum());
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        max.accumulate(other.max.get());
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double percentile(double quantile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        double rank = quantile * total;
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (cumulative + counts[i] >= rank) {
+                double lower = i == 0 ? 0 : BUCKET_BOUNDS_MS[i - 1];
+                double upper = i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : max.get();
+                double fraction = (rank - cumulative) / counts[i];
+                return Math.min(lower + (upper - lower) * fraction, max.get());
+            }
+            cumulative += counts[i];
+        }
+        return max.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        long total = count.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("avgMs", total == 0 ? 0 : (double) sum.sum() / total);
+        snapshot.put("p50Ms", percentile(0.50));
+        snapshot.put("p90Ms", percentile(0.90));
+        snapshot.put("p95Ms", percentile(0.95));
+        snapshot.put("p99Ms", percentile(0.99));
+        snapshot.put("maxMs", max.get());
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length; i++) {
+            histogram.put(i < BUCKET_BOUNDS_MS.length ? "le_" + BUCKET_BOUNDS_MS[i] : "le_inf", buckets[i].sum());
+        }
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+
+    private static int bucketIndex(long latencyMs) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (latencyMs <= BUCKET_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+}
@@ -0,0 +1,77 @@
+package com.authenhub.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes a {@link LiveTrafficMetrics} snapshot to {@value #TOPIC} once per interval.
+ * <p>
+ * The snapshot is computed once per tick from in-memory counters and the broker fans it out to every subscribed
+ * dashboard, nothing is computed while no dashboard is subscribed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveAnalyticsPublisher {
+
+    public static final String TOPIC = "/topic/analytics";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LiveTrafficMetrics liveTrafficMetrics;
+
+    // sessionId -> subscription ids on the analytics topic
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+
+    @Value("${access-log.live.enabled:true}")
+    private boolean enabled;
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (TOPIC.equals(accessor.getDestination())) {
+            subscriptions.computeIfAbsent(accessor.getSessionId(), k -> ConcurrentHashMap.newKeySet())
+                    .add(accessor.getSubscriptionId());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        subscriptions.computeIfPresent(accessor.getSessionId(), (sessionId, ids) -> {
+            ids.remove(accessor.getSubscriptionId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        subscriptions.remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedRateString = "${access-log.live.interval-ms:1000}",
+            initialDelayString = "${access-log.live.interval-ms:1000}")
+    public void publish() {
+        if (!enabled || subscriptions.isEmpty()) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSend(TOPIC, liveTrafficMetrics.snapshot());
+        } catch (Exception e) {
+            // Keep the schedule alive, the next tick sends a fresh snapshot anyway
+            log.error("[LiveAnalyticsPublisher] publish to {} have exception", TOPIC, e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.authenhub.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-second traffic counters for the live dashboard, kept for the last {@link #SLOTS} seconds.
+ * Request threads only touch the slot of the current second, a slot is recycled when its second comes round again.
+ */
+@Component
+public class LiveTrafficMetrics {
+
+    static final int SLOTS = 64;
+
+    private static final class Slot {
+        private final long second;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Slot(long second) {
+            this.second = second;
+        }
+    }
+
+    private final AtomicReferenceArray<Slot> slots = new AtomicReferenceArray<>(SLOTS);
+    // userId -> last second seen
+    private final Map<String, Long> activeUsers = new ConcurrentHashMap<>();
+    private final LongAdder totalRequests = new LongAdder();
+    private final int latencyWindowSeconds;
+    private final int activeUserWindowSeconds;
+
+    public LiveTrafficMetrics(@Value("${access-log.live.latency-window-seconds:10}") int latencyWindowSeconds,
+                              @Value("${access-log.live.active-user-window-seconds:300}") int activeUserWindowSeconds) {
+        this.latencyWindowSeconds = Math.min(Math.max(latencyWindowSeconds, 1), SLOTS - 1);
+        this.activeUserWindowSeconds = activeUserWindowSeconds;
+    }
+
+    public void record(int statusCode, long latencyMs, String userId) {
+        long second = currentSecond();
+        Slot slot = slot(second);
+        slot.requests.increment();
+        if (statusCode >= 500) {
+            slot.serverErrors.increment();
+        } else if (statusCode >= 400) {
+            slot.clientErrors.increment();
+        }
+        slot.latency.record(latencyMs);
+        totalRequests.increment();
+        if (userId != null) {
+            activeUsers.put(userId, second);
+        }
+    }
+
+    /**
+     * Rates of the last completed second, latency percentiles over the last {@code latency-window-seconds}
+     * and users seen within {@code active-user-window-seconds}
+     */
+    public Map<String, Object> snapshot() {
+        long now = currentSecond();
+        Slot last = completed(now - 1);
+        long requests = last != null ? last.requests.sum() : 0;
+        long serverErrors = last != null ? last.serverErrors.sum() : 0;
+        long clientErrors = last != null ? last.clientErrors.sum() : 0;
+
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int i = 1; i <= latencyWindowSeconds; i++) {
+            Slot slot = completed(now - i);
+            if (slot != null) {
+                latency.add(slot.latency);
+            }
+        }
+
+        pruneActiveUsers();
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("timestamp", (now - 1) * 1000);
+        snapshot.put("requestsPerSecond", requests);
+        snapshot.put("clientErrorsPerSecond", clientErrors);
+        snapshot.put("serverErrorsPerSecond", serverErrors);
+        snapshot.put("errorRate", requests == 0 ? 0.0 : (double) serverErrors / requests);
+        snapshot.put("latencyP50Ms", latency.percentile(0.50));
+        snapshot.put("latencyP95Ms", latency.percentile(0.95));
+        snapshot.put("latencyP99Ms", latency.percentile(0.99));
+        snapshot.put("activeUsers", activeUsers.size());
+        snapshot.put("totalRequests", totalRequests.sum());
+        return snapshot;
+    }
+
+    /**
+     * Forget users not seen within the window, runs whether or not anyone is subscribed to snapshots
+     */
+    @Scheduled(fixedDelayString = "${access-log.live.active-user-prune-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void pruneActiveUsers() {
+        long activeSince = currentSecond() - activeUserWindowSeconds;
+        activeUsers.values().removeIf(seen -> seen < activeSince);
+    }
+
+    private Slot slot(long second) {
+        int index = (int) (second % SLOTS);
+        while (true) {
+            Slot slot = slots.get(index);
+            // A stale slot from a previous lap is replaced, a newer one (clock stepped back) is reused
+            if (slot != null && slot.second >= second) {
+                return slot;
+            }
+            Slot fresh = new Slot(second);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private Slot completed(long second) {
+        Slot slot = slots.get((int) (second % SLOTS));
+        return slot != null && slot.second == second ? slot : null;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
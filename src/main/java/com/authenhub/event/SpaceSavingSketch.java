@@ -0,0 +1,124 @@
+package com.authenhub.event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy hitters summary with a fixed number of counters.
+ * <p>
+ * A new key takes over the smallest counter and inherits its count as error, so every key whose true frequency
+ * exceeds total / capacity is guaranteed to be present and {@code count - error} is a lower bound of its true
+ * frequency. Summaries merge by adding counts, using the other side's minimum for keys it does not hold, and
+ * keeping the largest {@code capacity} counters. Not thread-safe.
+ */
+public class SpaceSavingSketch {
+
+    public record Entry(String key, long count, long error) {
+    }
+
+    private static final class Counter {
+        private long count;
+        private long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public SpaceSavingSketch(int capacity, List<Entry> entries) {
+        this(capacity);
+        for (Entry entry : entries) {
+            counters.put(entry.key(), new Counter(entry.count(), entry.error()));
+        }
+        truncate();
+    }
+
+    public void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(1, 0));
+            return;
+        }
+        Map.Entry<String, Counter> smallest = smallest();
+        counters.remove(smallest.getKey());
+        long floor = smallest.getValue().count;
+        counters.put(key, new Counter(floor + 1, floor));
+    }
+
+    public void merge(SpaceSavingSketch other) {
+        long ownFloor = counters.size() < capacity ? 0 : smallest().getValue().count;
+        long otherFloor = other.counters.size() < other.capacity ? 0 : other.smallest().getValue().count;
+        for (Map.Entry<String, Counter> entry : other.counters.entrySet()) {
+            Counter counter = counters.get(entry.getKey());
+            if (counter == null) {
+                counters.put(entry.getKey(), new Counter(entry.getValue().count + ownFloor, entry.getValue().error + ownFloor));
+            } else {
+                counter.count += entry.getValue().count;
+                counter.error += entry.getValue().error;
+            }
+        }
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (!other.counters.containsKey(entry.getKey()) && otherFloor > 0) {
+                entry.getValue().count += otherFloor;
+                entry.getValue().error += otherFloor;
+            }
+        }
+        truncate();
+    }
+
+    /**
+     * Largest counters first
+     */
+    public List<Entry> top(int limit) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Counter> e) -> e.getValue().count).reversed())
+                .limit(limit)
+                .map(e -> new Entry(e.getKey(), e.getValue().count, e.getValue().error))
+                .toList();
+    }
+
+    public List<Entry> entries() {
+        return top(counters.size());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private Map.Entry<String, Counter> smallest() {
+        Map.Entry<String, Counter> smallest = null;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (smallest == null || entry.getValue().count < smallest.getValue().count) {
+                smallest = entry;
+            }
+        }
+        return smallest;
+    }
+
+    private void truncate() {
+        if (counters.size() <= capacity) {
+            return;
+        }
+        List<Entry> kept = new ArrayList<>(top(capacity));
+        counters.clear();
+        for (Entry entry : kept) {
+            counters.put(entry.key(), new Counter(entry.count(), entry.error()));
+        }
+    }
+}
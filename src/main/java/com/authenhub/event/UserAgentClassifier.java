@@ -0,0 +1,194 @@
+package com.authenhub.event;
+
+import com.authenhub.dto.AccessLogDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies User-Agent headers into (browser, OS, device).
+ * <p>
+ * All tokens of the rule table are compiled into one Aho-Corasick automaton, so a header is scanned once,
+ * case-insensitively, whatever the number of rules. Rules are then evaluated on the matched-token bitmask in
+ * table order, first match wins. Results are cached per raw header since the same few strings repeat constantly.
+ */
+@Component
+public class UserAgentClassifier {
+
+    private static final int ALPHABET = 128;
+
+    private enum Dimension { BROWSER, OS, DEVICE }
+
+    private record Rule(Dimension dimension, String value, List<String> anyOf, List<String> noneOf) {
+    }
+
+    // Order matters: Edge/Opera/Samsung announce Chrome and Safari too, iOS and Android announce Mac OS and Linux
+    private static final List<Rule> RULES = List.of(
+            new Rule(Dimension.BROWSER, "Bot", List.of("bot", "spider", "crawl"), List.of()),
+            new Rule(Dimension.BROWSER, "Edge", List.of("edg/", "edge/", "edga/", "edgios/"), List.of()),
+            new Rule(Dimension.BROWSER, "Opera", List.of("opr/", "opera"), List.of()),
+            new Rule(Dimension.BROWSER, "Samsung Internet", List.of("samsungbrowser"), List.of()),
+            new Rule(Dimension.BROWSER, "Firefox", List.of("firefox", "fxios/"), List.of()),
+            new Rule(Dimension.BROWSER, "Chrome", List.of("chrome/", "crios/"), List.of()),
+            new Rule(Dimension.BROWSER, "Safari", List.of("safari"), List.of()),
+
+            new Rule(Dimension.OS, "Windows", List.of("windows"), List.of()),
+            new Rule(Dimension.OS, "iOS", List.of("iphone", "ipad", "ipod"), List.of()),
+            new Rule(Dimension.OS, "Android", List.of("android"), List.of()),
+            new Rule(Dimension.OS, "MacOS", List.of("mac os", "macintosh"), List.of()),
+            new Rule(Dimension.OS, "ChromeOS", List.of("cros "), List.of()),
+            new Rule(Dimension.OS, "Linux", List.of("linux"), List.of()),
+
+            new Rule(Dimension.DEVICE, "BOT", List.of("bot", "spider", "crawl"), List.of()),
+            new Rule(Dimension.DEVICE, "TABLET", List.of("ipad", "tablet"), List.of()),
+            // Android tablets drop the "Mobile" token
+            new Rule(Dimension.DEVICE, "TABLET", List.of("android"), List.of("mobi")),
+            new Rule(Dimension.DEVICE, "MOBILE", List.of("mobi", "iphone", "ipod"), List.of())
+    );
+
+    private static final Map<Dimension, String> DEFAULTS = Map.of(
+            Dimension.BROWSER, UserAgentInfo.UNKNOWN.browser(),
+            Dimension.OS, UserAgentInfo.UNKNOWN.operatingSystem(),
+            Dimension.DEVICE, UserAgentInfo.UNKNOWN.deviceType()
+    );
+
+    private final int[][] transitions;
+    private final long[] outputs;
+    private final long[] ruleAnyMasks;
+    private final long[] ruleNoneMasks;
+    private final Cache<String, UserAgentInfo> cache;
+    private final Map<UserAgentInfo, UserAgentInfo> interned = new ConcurrentHashMap<>();
+
+    public UserAgentClassifier(@Value("${access-log.user-agent.cache-size:10000}") long cacheSize) {
+        Map<String, Integer> tokenIds = new LinkedHashMap<>();
+        for (Rule rule : RULES) {
+            rule.anyOf().forEach(token -> tokenIds.putIfAbsent(token, tokenIds.size()));
+            rule.noneOf().forEach(token -> tokenIds.putIfAbsent(token, tokenIds.size()));
+        }
+        if (tokenIds.size() > Long.SIZE) {
+            throw new IllegalStateException("User agent rule table has more than 64 distinct tokens");
+        }
+        ruleAnyMasks = new long[RULES.size()];
+        ruleNoneMasks = new long[RULES.size()];
+        for (int i = 0; i < RULES.size(); i++) {
+            ruleAnyMasks[i] = mask(RULES.get(i).anyOf(), tokenIds);
+            ruleNoneMasks[i] = mask(RULES.get(i).noneOf(), tokenIds);
+        }
+
+        // Build the trie, then turn it into a complete automaton with failure links folded in
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Long> outputTable = new ArrayList<>();
+        gotoTable.add(newState());
+        outputTable.add(0L);
+        for (Map.Entry<String, Integer> token : tokenIds.entrySet()) {
+            int state = 0;
+            for (char c : token.getKey().toCharArray()) {
+                if (gotoTable.get(state)[c] < 0) {
+                    gotoTable.get(state)[c] = gotoTable.size();
+                    gotoTable.add(newState());
+                    outputTable.add(0L);
+                }
+                state = gotoTable.get(state)[c];
+            }
+            outputTable.set(state, outputTable.get(state) | (1L << token.getValue()));
+        }
+
+        transitions = gotoTable.toArray(new int[0][]);
+        outputs = outputTable.stream().mapToLong(Long::longValue).toArray();
+        int[] failure = new int[transitions.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            if (transitions[0][c] < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[transitions[0][c]] = 0;
+                queue.add(transitions[0][c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] |= outputs[failure[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        cache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    public UserAgentInfo classify(String userAgent) {
+        if (StringUtils.isEmpty(userAgent)) {
+            return UserAgentInfo.UNKNOWN;
+        }
+        return cache.get(userAgent, this::match);
+    }
+
+    /**
+     * Fill browser, OS and device type of an access log that only carries the raw header
+     */
+    public void enrich(AccessLogDTO accessLog) {
+        if (accessLog.getBrowser() != null || StringUtils.isEmpty(accessLog.getUserAgent())) {
+            return;
+        }
+        UserAgentInfo info = classify(accessLog.getUserAgent());
+        accessLog.setBrowser(info.browser());
+        accessLog.setOperatingSystem(info.operatingSystem());
+        accessLog.setDeviceType(info.deviceType());
+    }
+
+    private UserAgentInfo match(String userAgent) {
+        long matched = 0;
+        int state = 0;
+        for (int i = 0; i < userAgent.length(); i++) {
+            char c = Character.toLowerCase(userAgent.charAt(i));
+            state = c < ALPHABET ? transitions[state][c] : 0;
+            matched |= outputs[state];
+        }
+
+        Map<Dimension, String> values = new LinkedHashMap<>(DEFAULTS);
+        boolean[] resolved = new boolean[Dimension.values().length];
+        for (int i = 0; i < RULES.size(); i++) {
+            Rule rule = RULES.get(i);
+            if (!resolved[rule.dimension().ordinal()]
+                    && (matched & ruleAnyMasks[i]) != 0
+                    && (matched & ruleNoneMasks[i]) == 0) {
+                values.put(rule.dimension(), rule.value());
+                resolved[rule.dimension().ordinal()] = true;
+            }
+        }
+        UserAgentInfo info = new UserAgentInfo(
+                values.get(Dimension.BROWSER), values.get(Dimension.OS), values.get(Dimension.DEVICE));
+        return interned.computeIfAbsent(info, key -> key);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static long mask(List<String> tokens, Map<String, Integer> tokenIds) {
+        long mask = 0;
+        for (String token : tokens) {
+            mask |= 1L << tokenIds.get(token);
+        }
+        return mask;
+    }
+}
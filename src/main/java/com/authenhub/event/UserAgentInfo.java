@@ -0,0 +1,9 @@
+package com.authenhub.event;
+
+/**
+ * Classified user agent. Instances are interned by {@link UserAgentClassifier}, there are only a few dozen combinations.
+ */
+public record UserAgentInfo(String browser, String operatingSystem, String deviceType) {
+
+    public static final UserAgentInfo UNKNOWN = new UserAgentInfo("Other", "Other", "DESKTOP");
+}
@@ -0,0 +1,22 @@
+package com.authenhub.exception;
+
+import com.authenhub.constant.enums.ProxyCheckFailure;
+import lombok.Getter;
+
+import java.io.IOException;
+
+public class ProxyCheckException extends IOException {
+
+    @Getter
+    private final ProxyCheckFailure reason;
+
+    public ProxyCheckException(ProxyCheckFailure reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public ProxyCheckException(ProxyCheckFailure reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+}
@@ -2,21 +2,22 @@ package com.authenhub.filter;
 
 import com.authenhub.constant.Constant;
 import com.authenhub.constant.JwtConstant;
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
 import com.authenhub.dto.AccessLogDTO;
-import com.authenhub.entity.RolePermission;
 import com.authenhub.entity.User;
-import com.authenhub.entity.Permission;
-import com.authenhub.entity.Role;
 import com.authenhub.event.AccessTrackingPublisher;
-import com.authenhub.exception.ErrorApiException;
-import com.authenhub.repository.jpa.PermissionJpaRepository;
-import com.authenhub.repository.jpa.RoleJpaRepository;
-import com.authenhub.repository.jpa.RolePermissionRepository;
-import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.event.EndpointLatencyHistograms;
+import com.authenhub.event.LiveTrafficMetrics;
+import com.authenhub.security.AuthorizationCache;
+import com.authenhub.security.AuthorizationSnapshot;
+import com.authenhub.security.RouteAccess;
+import com.authenhub.security.RouteClassifier;
 import com.authenhub.utils.TimestampUtils;
 import com.authenhub.utils.Utils;
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import io.jsonwebtoken.Claims;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,23 +25,21 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.logging.log4j.util.Strings;
-import org.slf4j.MDC;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.List;
+import java.sql.Timestamp;
+import java.util.Date;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
 
 import static com.authenhub.utils.Utils.getClientIp;
 
@@ -49,84 +48,116 @@ import static com.authenhub.utils.Utils.getClientIp;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * Request attribute holding the username a login request tried, set by the login service
+     */
+    public static final String LOGIN_USERNAME_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".LOGIN_USERNAME";
+
     private final JwtService jwtService;
-    private final RoleJpaRepository roleRepository;
-    private final UserJpaRepository userRepository;
-    private final UserJpaRepository userJpaRepository;
+    private final RouteClassifier routeClassifier;
+    private final AuthorizationCache authorizationCache;
     private final AccessTrackingPublisher publisherAction;
-    private final PermissionJpaRepository permissionRepository;
-    private final RolePermissionRepository rolePermissionRepository;
-
-    // Danh sách các đường dẫn không cần xác thực
-    private final static String[] PUBLIC_PATHS = {
-            "/auth/login",
-            "/auth/register",
-            "/auth/forgot-password",
-            "/auth/reset-password",
-            "/auth/social-login",
-            "/auth/oauth2/callback"
-    };
+    private final EndpointLatencyHistograms endpointLatencyHistograms;
+    private final LiveTrafficMetrics liveTrafficMetrics;
 
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
+        // Correlation id is already in the MDC, assigned by LogFilter
         long startTime = System.currentTimeMillis();
-        MDC.put(Constant.TOKEN, NanoIdUtils.randomNanoId());
+        ByteCountingResponseWrapper trackedResponse = new ByteCountingResponseWrapper(response);
+        boolean failed = false;
 
+        final String authHeader = request.getHeader("Authorization");
+        final String jwt;
+        final String username;
+        // Các đường dẫn không cần xác thực
         String requestPath = request.getRequestURI();
-        for (String publicPath : PUBLIC_PATHS) {
-            if (requestPath.startsWith(publicPath)) {
+        boolean publicRoute = routeClassifier.classify(requestPath) == RouteAccess.PUBLIC;
+        try {
+            if (publicRoute) {
                 log.info("Request to {} kiểm tra và xử lí lỗi ở filter khi ng dùng đang đăng nhập", requestPath);
-                filterChain.doFilter(request, response);
+                filterChain.doFilter(request, trackedResponse);
                 return;
             }
-        }
 
-        final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String username;
-        try {
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                filterChain.doFilter(request, response);
+                filterChain.doFilter(request, trackedResponse);
                 return;
             }
 
             jwt = getJwtFromRequest(request);
             if (jwt == null || jwt.isEmpty()) {
-                filterChain.doFilter(request, response);
+                filterChain.doFilter(request, trackedResponse);
                 return;
             }
 
-            username = jwtService.extractUsername(jwt);
+            // Parse the token once and share the claims with the rest of the chain
+            Claims claims = jwtService.extractAllClaims(jwt);
+            if (claims != null) {
+                request.setAttribute(JwtService.CLAIMS_ATTRIBUTE, claims);
+            }
+            username = claims != null ? claims.getSubject() : null;
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UsernamePasswordAuthenticationToken authToken = getAuthorization(jwt);
-                authToken.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+                UsernamePasswordAuthenticationToken authToken = getAuthorization(jwt, claims);
+                if (authToken != null) {
+                    authToken.setDetails(
+                            new WebAuthenticationDetailsSource().buildDetails(request)
+                    );
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
             }
-            publishAction(request, username);
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(request, trackedResponse);
         } catch (Exception ex) {
+            failed = true;
             log.error("Function doFilterInternal has exception: ", ex);
+            if (publicRoute) {
+                // Public routes never went through token handling, let the container report their errors
+                throw ex;
+            }
         } finally {
-            log.info(
-                    "Request to {} with ip=[{}] finish in {} ms",
-                    Utils.getRequestUri(request),
-                    getClientIp(request),
-                    Utils.end(startTime)
-            );
-            MDC.clear();
+            User user = getCurrentUser();
+            if (request.isAsyncStarted()) {
+                // Async and streaming responses are written after this returns, track them once they complete
+                request.getAsyncContext().addListener(
+                        new TrackingAsyncListener(request, trackedResponse, user, startTime, failed));
+            } else {
+                track(request, trackedResponse, user, startTime, failed);
+            }
         }
 
     }
 
+    /**
+     * Track after the response so status, latency and size are the real ones
+     */
+    private void track(HttpServletRequest request, ByteCountingResponseWrapper trackedResponse, User user,
+                       long startTime, boolean failed) {
+        trackedResponse.finish();
+        publishAction(request, trackedResponse, user, startTime, failed);
+        log.info(
+                "Request to {} with ip=[{}] finish in {} ms",
+                Utils.getRequestUri(request),
+                getClientIp(request),
+                Utils.end(startTime)
+        );
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Static resources and health checks skip correlation id, logging and access tracking
+        return routeClassifier.classify(request) == RouteAccess.IGNORED;
+    }
+
     public UsernamePasswordAuthenticationToken getAuthorization(String token) {
+        return getAuthorization(token, jwtService.extractAllClaims(token));
+    }
+
+    public UsernamePasswordAuthenticationToken getAuthorization(String token, Claims claims) {
         try {
-            Claims claims = jwtService.extractAllClaims(token);
             if (Objects.isNull(claims)) {
                 log.info("Function getAuthentication FAIL -> Claims is empty!");
                 return null;
@@ -147,47 +178,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return null;
             }
 
-            // Get user from repository
-            User user = userRepository.findByUsername(subject).orElse(null);
-            if (user == null) {
-                log.debug("User not found for username: {}", subject);
-                return null;
-            }
-
-            // Get permissions
-            Set<GrantedAuthority> grantedAuthorities = new HashSet<>();
             Long userId = claims.get(JwtConstant.USER_ID_FIELD, Long.class);
             Long roleId = claims.get(JwtConstant.JWT_TOKEN_CLAIM_ROLE_ID, Long.class);
-
-            // Verify that the user ID in the token matches the user from the database
-            if (!user.getId().equals(userId)) {
-                log.debug("User ID mismatch: {} vs {}", user.getId(), userId);
+            AuthorizationSnapshot snapshot = authorizationCache.get(userId, roleId);
+            if (snapshot == null) {
+                log.debug("Authorization snapshot not found for user {} and role {}", userId, roleId);
                 return null;
             }
 
-            Role role = roleRepository.findById(roleId).orElse(null);
-            if (role == null) {
-                log.debug("Role not found for id: {}", roleId);
+            // Verify that the subject in the token matches the cached user
+            User user = snapshot.principal();
+            if (!subject.equals(user.getUsername())) {
+                log.debug("Username mismatch: {} vs {}", user.getUsername(), subject);
                 return null;
             }
 
-            List<RolePermission> rolePermissions = rolePermissionRepository.findAllByRoleId(roleId);
-            if (rolePermissions == null || rolePermissions.isEmpty()) {
-                log.debug("RolePermission not found for id: {}", roleId);
+            if (isIssuedBeforeRevocation(claims, user)) {
+                log.debug("Token of user {} was issued before its tokens were revoked", subject);
                 return null;
             }
 
-            Set<String> lstFunctionAction = rolePermissions.stream()
-                    .map(RolePermission::getPermissionName)
-                    .collect(Collectors.toSet());
-
-            log.debug("Found {} permissions for user {}", lstFunctionAction.size(), subject);
-
-            lstFunctionAction.forEach(permission -> grantedAuthorities.add(new SimpleGrantedAuthority(permission)));
+            // Authorities come from the snapshot, which follows role and permission changes
+            Set<GrantedAuthority> authorities = snapshot.authorities();
 
             // Create authentication token with the full User object as principal
             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                    user, token, grantedAuthorities);
+                    user, token, authorities);
             log.debug("Authentication token created successfully for user: {}", subject);
             return authentication;
         } catch (Exception ex) {
@@ -196,97 +212,127 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
-    private void publishAction(HttpServletRequest request, String username) throws ErrorApiException, ExecutionException {
-        log.info("Begin publishAction from JWTFilter");
-        long startTime = System.currentTimeMillis();
+    /**
+     * {@code iat} only has second precision, so the revocation instant is truncated the same way: a token issued
+     * in the same second as a password change is still accepted rather than refusing the new login.
+     */
+    private boolean isIssuedBeforeRevocation(Claims claims, User user) {
+        Timestamp validAfter = user.getTokensValidAfter();
+        if (validAfter == null) {
+            return false;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt == null || issuedAt.getTime() / 1000 < validAfter.getTime() / 1000;
+    }
+
+    private void publishAction(HttpServletRequest request, ByteCountingResponseWrapper response, User user,
+                               long startTime, boolean failed) {
+        long responseTimeMs = System.currentTimeMillis() - startTime;
+        // Exceptions swallowed above never reach the error handling, report them as server errors
+        int statusCode = failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
         String uri = request.getRequestURI();
+        String route = getEndpointPattern(request);
+        AccessEventType eventType = AccessEventType.ofRoute(route);
         String ip = getClientIp((request));
-        com.authenhub.entity.User user = getUserInfo(username);
+        String userId = null;
         String userLogin = null;
         String fullName = null;
         String mail = null;
         if (Objects.nonNull(user)) {
+            userId = String.valueOf(user.getId());
             userLogin = user.getUsername();
             fullName = user.getFullName();
             mail = user.getEmail();
+        } else if (eventType == AccessEventType.LOGIN
+                && request.getAttribute(LOGIN_USERNAME_ATTRIBUTE) instanceof String attemptedUsername) {
+            // Login routes are public, no principal yet: log the username that was tried
+            userLogin = attemptedUsername;
         }
         String userAgent = request.getHeader("User-Agent");
         AccessLogDTO accessLogDTO = AccessLogDTO.builder()
+                .userId(userId)
                 .username(userLogin)
                 .ipAddress(ip)
                 .endpoint(uri)
+                .route(route)
+                .eventType(eventType)
+                .outcome(eventType == AccessEventType.LOGIN ? LoginOutcome.ofStatus(statusCode) : null)
                 .userAgent(userAgent)
                 .method(request.getMethod())
                 .timestamp(TimestampUtils.now())
                 .referrer(request.getHeader("Referer"))
-                .responseTimeMs(System.currentTimeMillis() - startTime)
+                .statusCode(statusCode)
+                .responseTimeMs(responseTimeMs)
+                .responseSize(response.getBytesWritten())
 //                .sessionId(request.getSession().getId())
                 .build();
 
-        // Parse user agent for browser, OS, device type
-        parseUserAgent(userAgent, accessLogDTO);
-        publisherAction.publishEvent(accessLogDTO);
-        log.info("End publish action from JWTFilter with data userName= {}, fullName = {}, mail= {}, ip = {}, uri = {} ",
-                userLogin, fullName, mail, ip, uri);
+        try {
+            // Only the raw User-Agent is captured here, it is classified on the ingestion side
+            endpointLatencyHistograms.record(request.getMethod(), route, responseTimeMs);
+            liveTrafficMetrics.record(statusCode, responseTimeMs, userId);
+            publisherAction.publishEvent(accessLogDTO);
+        } catch (Exception e) {
+            log.error("Function publishAction has exception: ", e);
+        }
+        log.info("Published access log userName= {}, fullName = {}, mail= {}, ip = {}, uri = {}, status = {}",
+                userLogin, fullName, mail, ip, uri, statusCode);
     }
 
-    private User getUserInfo(String username) {
-        User user = userJpaRepository.findByUsername(username).orElse(null);
-        if (user == null) {
-            log.debug("User not found for username: {}", username);
-            return null;
-        }
-        return user;
+    /**
+     * Route template such as {@code /api/users/{id}} so ids in the path do not create one histogram each
+     */
+    private String getEndpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : EndpointLatencyHistograms.UNMATCHED_ENDPOINT;
     }
 
-    private void parseUserAgent(String userAgent, AccessLogDTO accessLog) {
-        if (org.apache.commons.lang3.StringUtils.isEmpty(userAgent)) {
-            return;
+    private class TrackingAsyncListener implements AsyncListener {
+
+        private final HttpServletRequest request;
+        private final ByteCountingResponseWrapper trackedResponse;
+        private final User user;
+        private final long startTime;
+        private boolean failed;
+
+        TrackingAsyncListener(HttpServletRequest request, ByteCountingResponseWrapper trackedResponse, User user,
+                              long startTime, boolean failed) {
+            this.request = request;
+            this.trackedResponse = trackedResponse;
+            this.user = user;
+            this.startTime = startTime;
+            this.failed = failed;
         }
 
-        // Simple parsing - in a real app you might use a library like UADetector or user-agent-utils
-        userAgent = userAgent.toLowerCase();
-
-        // Detect browser
-        if (userAgent.contains("firefox") || userAgent.equalsIgnoreCase("firefox")) {
-            accessLog.setBrowser("Firefox");
-        } else if (userAgent.contains("chrome") && !userAgent.contains("edge")) {
-            accessLog.setBrowser("Chrome");
-        } else if (userAgent.contains("safari") && !userAgent.contains("chrome")) {
-            accessLog.setBrowser("Safari");
-        } else if (userAgent.contains("edge") || userAgent.contains("edg")) {
-            accessLog.setBrowser("Edge");
-        } else if (userAgent.contains("opera") || userAgent.contains("opr")) {
-            accessLog.setBrowser("Opera");
-        } else {
-            accessLog.setBrowser("Other");
+        @Override
+        public void onComplete(AsyncEvent event) {
+            track(request, trackedResponse, user, startTime, failed);
         }
 
-        // Detect OS
-        if (userAgent.contains("windows")) {
-            accessLog.setOperatingSystem("Windows");
-        } else if (userAgent.contains("mac os")) {
-            accessLog.setOperatingSystem("MacOS");
-        } else if (userAgent.contains("linux")) {
-            accessLog.setOperatingSystem("Linux");
-        } else if (userAgent.contains("android")) {
-            accessLog.setOperatingSystem("Android");
-        } else if (userAgent.contains("iphone") || userAgent.contains("ipad")) {
-            accessLog.setOperatingSystem("iOS");
-        } else {
-            accessLog.setOperatingSystem("Other");
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // The container or MVC answers the timeout, its status is reported from onComplete
         }
 
-        // Detect device type
-        if (userAgent.contains("mobile") || userAgent.contains("iphone")) {
-            accessLog.setDeviceType("MOBILE");
-        } else if (userAgent.contains("tablet") || userAgent.contains("ipad")) {
-            accessLog.setDeviceType("TABLET");
-        } else {
-            accessLog.setDeviceType("DESKTOP");
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-register for the next async cycle, onComplete only fires on the last one
+            event.getAsyncContext().addListener(this);
         }
     }
 
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return null;
+    }
 
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
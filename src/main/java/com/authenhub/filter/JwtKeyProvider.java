@@ -0,0 +1,160 @@
+package com.authenhub.filter;
+
+import com.authenhub.config.security.JwtSigningProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the keys used to sign and verify tokens.
+ * <p>
+ * In HS256 mode tokens are signed and verified with {@code jwt.secret}. In RS256 mode tokens carry a
+ * {@code kid} header that selects the public key used for verification, and HS256 tokens are refused
+ * unless {@code jwt.signing.legacy-hs256} is enabled and the token was issued before its cutoff.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JwtKeyProvider extends SigningKeyResolverAdapter {
+
+    private final JwtSigningProperties signingProperties;
+
+    @Value("${jwt.secret}")
+    private String secretKey;
+
+    private Key hmacKey;
+    private String activeKeyId;
+    private PrivateKey activePrivateKey;
+    private Instant legacyHs256IssuedBefore;
+    private final Map<String, RSAPublicKey> publicKeys = new LinkedHashMap<>();
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        this.hmacKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        if (!signingProperties.isAsymmetric()) {
+            return;
+        }
+
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        for (JwtSigningProperties.KeyEntry entry : signingProperties.getKeys()) {
+            publicKeys.put(entry.getKeyId(), (RSAPublicKey) keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(entry.getPublicKey()))));
+            if (entry.getKeyId().equals(signingProperties.getActiveKeyId())
+                    && StringUtils.isNotBlank(entry.getPrivateKey())) {
+                activePrivateKey = keyFactory.generatePrivate(
+                        new PKCS8EncodedKeySpec(Base64.getDecoder().decode(entry.getPrivateKey())));
+                activeKeyId = entry.getKeyId();
+            }
+        }
+
+        if (activePrivateKey == null) {
+            // A key generated here would differ on every node and every restart, refuse to start instead
+            throw new IllegalStateException("No private key configured for jwt.signing.active-key-id "
+                    + signingProperties.getActiveKeyId());
+        }
+
+        JwtSigningProperties.LegacyHs256 legacyHs256 = signingProperties.getLegacyHs256();
+        if (legacyHs256.isEnabled()) {
+            if (StringUtils.isBlank(legacyHs256.getIssuedBefore())) {
+                throw new IllegalStateException("jwt.signing.legacy-hs256.issued-before is required when legacy HS256 is enabled");
+            }
+            legacyHs256IssuedBefore = Instant.parse(legacyHs256.getIssuedBefore());
+            log.info("Accepting HS256 tokens issued before {}", legacyHs256IssuedBefore);
+        }
+        log.info("JWT signing with RS256, active key {} and {} verification keys", activeKeyId, publicKeys.size());
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signingProperties.isAsymmetric() ? SignatureAlgorithm.RS256 : SignatureAlgorithm.HS256;
+    }
+
+    public Key getSigningKey() {
+        return signingProperties.isAsymmetric() ? activePrivateKey : hmacKey;
+    }
+
+    /**
+     * Key id to put in the token header, null for HS256
+     */
+    public String getSigningKeyId() {
+        return signingProperties.isAsymmetric() ? activeKeyId : null;
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String algorithm = header.getAlgorithm();
+        if (SignatureAlgorithm.HS256.getValue().equals(algorithm)) {
+            if (!signingProperties.isAsymmetric() || isLegacyHs256(claims)) {
+                return hmacKey;
+            }
+            throw new SignatureException("HS256 tokens are no longer accepted");
+        }
+        if (SignatureAlgorithm.RS256.getValue().equals(algorithm)) {
+            RSAPublicKey publicKey = publicKeys.get(header.getKeyId());
+            if (publicKey != null) {
+                return publicKey;
+            }
+            throw new SignatureException("Unknown signing key id: " + header.getKeyId());
+        }
+        throw new SignatureException("Unsupported signing algorithm: " + algorithm);
+    }
+
+    private boolean isLegacyHs256(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        return legacyHs256IssuedBefore != null && issuedAt != null
+                && issuedAt.toInstant().isBefore(legacyHs256IssuedBefore);
+    }
+
+    /**
+     * Public keys in JSON Web Key Set format
+     */
+    public Map<String, Object> getJwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((keyId, publicKey) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", SignatureAlgorithm.RS256.getValue());
+            jwk.put("kid", keyId);
+            jwk.put("n", base64Url(publicKey.getModulus()));
+            jwk.put("e", base64Url(publicKey.getPublicExponent()));
+            keys.add(jwk);
+        });
+        return Map.of("keys", keys);
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Drop the sign byte added by BigInteger, JWK values are unsigned
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
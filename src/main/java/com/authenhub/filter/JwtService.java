@@ -2,9 +2,13 @@ package com.authenhub.filter;
 
 import com.authenhub.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -13,7 +17,6 @@ import org.springframework.stereotype.Component;
 
 import org.springframework.util.StringUtils;
 
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -22,13 +25,35 @@ import java.util.function.Function;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtService {
-    @Value("${jwt.secret}")
-    private String secretKey;
 
-    @Value("${jwt.expiration}")
+    /**
+     * Request attribute holding the {@link Claims} already parsed by the JWT filter
+     */
+    public static final String CLAIMS_ATTRIBUTE = JwtService.class.getName() + ".CLAIMS";
+
+    private final JwtKeyProvider jwtKeyProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    // Access tokens are short-lived, fall back to the legacy jwt.expiration when not configured
+    @Value("${jwt.access-token-expiration:${jwt.expiration}}")
     private long jwtExpiration;
 
+    // Parser is immutable and thread-safe, build it once instead of per token
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(jwtKeyProvider)
+                .build();
+    }
+
+    public long getAccessTokenExpiration() {
+        return jwtExpiration;
+    }
+
     public String extractUsername(String token) {
         log.debug("Extracting username from token: {}", token);
         return extractClaim(token, Claims::getSubject);
@@ -44,7 +69,10 @@ public class JwtService {
     }
 
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
+        return extractRole(extractAllClaims(token));
+    }
+
+    public String extractRole(Claims claims) {
         if (claims == null) {
             return null;
         }
@@ -75,32 +103,52 @@ public class JwtService {
             return null;
         }
 
-        try {
-            final String finalToken = getJwtFromRequest(token);
-            if (finalToken == null || finalToken.isEmpty()) {
-                log.warn("Token after processing is null or empty");
-                return null;
-            }
+        final String finalToken = getJwtFromRequest(token);
+        if (finalToken == null || finalToken.isEmpty()) {
+            log.warn("Token after processing is null or empty");
+            return null;
+        }
+
+        return verifiedTokenCache.get(finalToken, this::parseClaims);
+    }
 
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSignKey())
-                    .build()
-                    .parseClaimsJws(finalToken)
-                    .getBody();
+    private Claims parseClaims(String token) {
+        try {
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             log.error("Error extracting claims from token: {}", e.getMessage());
             return null;
         }
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Revoke a single token, e.g. on logout
+     */
+    public void revokeToken(String token, Claims claims) {
+        final String finalToken = getJwtFromRequest(token);
+        if (finalToken == null || finalToken.isEmpty()) {
+            return;
+        }
+        verifiedTokenCache.revoke(finalToken, claims);
+    }
+
+    /**
+     * Get the claims parsed by the JWT filter for this request, falling back to parsing the token
+     * when the filter did not run (e.g. public paths).
+     */
+    public Claims extractAllClaims(HttpServletRequest request, String token) {
+        Object claims = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (claims instanceof Claims parsedClaims) {
+            return parsedClaims;
+        }
+        return extractAllClaims(token);
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
 
-        // Add user roles and permissions to the token
+        // Add user roles to the token, permissions are not embedded:
+        // the filter reads them from the AuthorizationCache snapshot
         List<String> authorities = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
@@ -109,17 +157,9 @@ public class JwtService {
                 .filter(auth -> auth.startsWith("ROLE_"))
                 .toList());
 
-        claims.put("roleId", authorities.stream()
-                .filter(auth -> auth.startsWith("ROLE_"))
-                .toList());
-
-        // Add permissions separately for easier access
-        claims.put("permissions", authorities.stream()
-                .filter(auth -> !auth.startsWith("ROLE_"))
-                .toList());
-
         // Add additional user info if available
         if (userDetails instanceof User user) {
+            claims.put("roleId", user.getRoleId());
             claims.put("userId", user.getId());
             claims.put("email", user.getEmail());
             claims.put("fullName", user.getFullName());
@@ -140,23 +180,19 @@ public class JwtService {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roleId", user.getRoleId());
         claims.put("userId", user.getId());
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setClaims(claims)
                 .setSubject(user.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(SignatureAlgorithm.HS256, getSignKey())
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration)));
     }
 
     private String createToken(Map<String, Object> claims, UserDetails userDetails) {
-        return Jwts.builder()
+        return sign(Jwts.builder()
                 .setClaims(claims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(SignatureAlgorithm.HS256, getSignKey())
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration)));
     }
 
 //    public String generateRefreshToken(User user) {
@@ -182,8 +218,13 @@ public class JwtService {
         return null;
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private String sign(JwtBuilder builder) {
+        String keyId = jwtKeyProvider.getSigningKeyId();
+        if (keyId != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, keyId);
+        }
+        return builder
+                .signWith(jwtKeyProvider.getSigningKey(), jwtKeyProvider.getSignatureAlgorithm())
+                .compact();
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.authenhub.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already verified tokens keyed by the SHA-256 digest of the token.
+ * <p>
+ * Clients reuse the same bearer token until it expires, so caching the parsed claims lets
+ * repeated requests skip the HMAC verification and claim decoding. Each entry lives until the
+ * token's own {@code exp} claim. Revoked tokens are remembered until they expire, whether or not
+ * the verified cache is enabled. The revocation list has no size bound: dropping an entry would
+ * make a logged out token valid again, and access tokens are short-lived anyway.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${jwt.verified-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.verified-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    private Cache<HashCode, Claims> verifiedTokens;
+    private Cache<HashCode, Claims> revokedTokens;
+
+    @PostConstruct
+    void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilTokenExpiration())
+                .recordStats()
+                .build();
+        revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpiration())
+                .build();
+    }
+
+    /**
+     * Get the claims of a token, verifying it with {@code verifier} only when it is not cached.
+     *
+     * @return the claims, or null if the token is invalid or has been revoked
+     */
+    public Claims get(String token, Function<String, Claims> verifier) {
+        HashCode digest = digest(token);
+        if (revokedTokens.getIfPresent(digest) != null) {
+            log.debug("Token has been revoked");
+            return null;
+        }
+
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims != null && !isExpired(claims)) {
+            return claims;
+        }
+
+        claims = verifier.apply(token);
+        if (claims != null && claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * Evict a token and refuse it until it expires (used on logout).
+     */
+    public void revoke(String token, Claims claims) {
+        HashCode digest = digest(token);
+        verifiedTokens.invalidate(digest);
+        if (claims != null && claims.getExpiration() != null) {
+            revokedTokens.put(digest, claims);
+        }
+    }
+
+    public long size() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    private static HashCode digest(String token) {
+        return Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration == null || expiration.before(new Date());
+    }
+
+    private static class UntilTokenExpiration implements Expiry<HashCode, Claims> {
+
+        @Override
+        public long expireAfterCreate(HashCode key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(HashCode key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(HashCode key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
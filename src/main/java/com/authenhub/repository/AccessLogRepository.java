@@ -1,5 +1,7 @@
 package com.authenhub.repository;
 
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
 import com.authenhub.entity.mongo.AccessLog;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
@@ -11,11 +13,11 @@ public interface AccessLogRepository extends MongoRepository<AccessLog, String>
     @Query(value = "{ 'timestamp': { $gte: ?0, $lte: ?1 } }", count = true)
     long countByDateRange(Timestamp start, Timestamp end);
 
-    @Query(value = "{ 'timestamp': { $gte: ?0, $lte: ?1 }, 'endpoint': { $regex: ?2, $options: 'i' } }", count = true)
-    long countByEndpointContaining(Timestamp start, Timestamp end, String endpointPattern);
+    @Query(value = "{ 'eventType': ?0, 'timestamp': { $gte: ?1, $lte: ?2 } }", count = true)
+    long countByEventTypeAndDateRange(AccessEventType eventType, Timestamp start, Timestamp end);
 
-    @Query(value = "{ 'timestamp': { $gte: ?0, $lte: ?1 }, 'endpoint': ?2, 'statusCode': ?3 }", count = true)
-    long countByEndpointAndStatusCode(Timestamp start, Timestamp end, String endpoint, int statusCode);
+    @Query(value = "{ 'eventType': ?0, 'timestamp': { $gte: ?2, $lte: ?3 }, 'outcome': ?1 }", count = true)
+    long countByEventTypeAndOutcomeAndDateRange(AccessEventType eventType, LoginOutcome outcome, Timestamp start, Timestamp end);
 
     List<AccessLog> findByEndpointContainingAndTimestampBetween(String endpointPattern, Timestamp start, Timestamp end);
     List<AccessLog> findByTimestampBetween(Timestamp start, Timestamp end);
@@ -1,6 +1,7 @@
 package com.authenhub.repository;
 
 import com.authenhub.entity.mongo.FreeProxy;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -27,4 +28,7 @@ public interface FreeProxyRepository extends MongoRepository<FreeProxy, String>
 
     @Query("{'uptime': {$gt: ?0}}")
     List<FreeProxy> findByUptimeGreaterThan(double minUptime);
+
+    @Query("{'$or': [{'nextCheckAt': {$lte: ?0}}, {'nextCheckAt': null}]}")
+    List<FreeProxy> findDueForCheck(Timestamp now, Pageable pageable);
 }
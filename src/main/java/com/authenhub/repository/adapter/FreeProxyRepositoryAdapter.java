@@ -8,7 +8,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
 import java.sql.Timestamp;
@@ -250,4 +252,18 @@ public class FreeProxyRepositoryAdapter implements RepositoryAdapter<com.authenh
                     .collect(Collectors.toList());
         }
     }
+
+    /**
+     * Proxy chưa từng kiểm tra hoặc đã đến hạn kiểm tra lại, hạn sớm nhất trước
+     */
+    public List<com.authenhub.entity.mongo.FreeProxy> findDueForCheck(Timestamp now, int limit) {
+        if (databaseConfig.isMongoActive()) {
+            // null sorts first in ascending order
+            return mongoRepository.findDueForCheck(now, PageRequest.of(0, limit, Sort.by("nextCheckAt")));
+        } else {
+            return jpaRepository.findDueForCheck(now, PageRequest.of(0, limit)).stream()
+                    .map(FreeProxy::toMongo)
+                    .collect(Collectors.toList());
+        }
+    }
 }
@@ -1,7 +1,10 @@
 package com.authenhub.repository.jpa;
 
 import com.authenhub.entity.FreeProxy;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
@@ -16,4 +19,7 @@ public interface FreeProxyJpaRepository extends JpaRepository<FreeProxy, Long> {
     List<FreeProxy> findByLastCheckedAfter(Timestamp date);
     List<FreeProxy> findByCreatedBy(String userId);
     List<FreeProxy> findByUptimeGreaterThan(double minUptime);
+
+    @Query("SELECT p FROM FreeProxy p WHERE p.nextCheckAt IS NULL OR p.nextCheckAt <= :now ORDER BY p.nextCheckAt ASC NULLS FIRST")
+    List<FreeProxy> findDueForCheck(@Param("now") Timestamp now, Pageable pageable);
 }
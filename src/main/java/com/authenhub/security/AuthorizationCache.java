@@ -0,0 +1,139 @@
+package com.authenhub.security;
+
+import com.authenhub.entity.Role;
+import com.authenhub.entity.RolePermission;
+import com.authenhub.entity.User;
+import com.authenhub.repository.jpa.RoleJpaRepository;
+import com.authenhub.repository.jpa.RolePermissionRepository;
+import com.authenhub.repository.jpa.UserJpaRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-process cache of authorization snapshots keyed by (userId, roleId).
+ * <p>
+ * The JWT filter resolves every authenticated request through this cache, so in steady state
+ * authentication does not touch the database. Services that change users, roles or permissions
+ * must call one of the {@code invalidate*} methods.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthorizationCache {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final RoleJpaRepository roleRepository;
+    private final UserJpaRepository userRepository;
+    private final RolePermissionRepository rolePermissionRepository;
+
+    @Value("${security.authorization-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${security.authorization-cache.expire-after-write-minutes:30}")
+    private long expireAfterWriteMinutes;
+
+    private Cache<Key, AuthorizationSnapshot> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the snapshot for a user/role pair, loading it from the database on a miss.
+     *
+     * @return the snapshot, or null if the user, role or its permissions do not exist
+     */
+    public AuthorizationSnapshot get(Long userId, Long roleId) {
+        if (userId == null || roleId == null) {
+            return null;
+        }
+        return cache.get(new Key(userId, roleId), this::load);
+    }
+
+    public void invalidateUser(Long userId) {
+        log.debug("Invalidate authorization cache for user {}", userId);
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.userId(), userId));
+    }
+
+    public void invalidateRole(Long roleId) {
+        log.debug("Invalidate authorization cache for role {}", roleId);
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.roleId(), roleId));
+    }
+
+    public void invalidateAll() {
+        log.debug("Invalidate whole authorization cache");
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private AuthorizationSnapshot load(Key key) {
+        User user = userRepository.findById(key.userId()).orElse(null);
+        if (user == null) {
+            log.debug("User not found for id: {}", key.userId());
+            return null;
+        }
+
+        Role role = roleRepository.findById(key.roleId()).orElse(null);
+        if (role == null) {
+            log.debug("Role not found for id: {}", key.roleId());
+            return null;
+        }
+
+        List<RolePermission> rolePermissions = rolePermissionRepository.findAllByRoleId(key.roleId());
+        if (rolePermissions == null || rolePermissions.isEmpty()) {
+            log.debug("RolePermission not found for id: {}", key.roleId());
+            return null;
+        }
+
+        Set<GrantedAuthority> authorities = rolePermissions.stream()
+                .map(RolePermission::getPermissionName)
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toSet());
+        // Role authorities back the hasRole() rules, e.g. the ADMIN routes in SecurityConfig
+        authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + role.getName()));
+        if (user.getRole() != null) {
+            authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + user.getRole()));
+        }
+        log.debug("Loaded {} permissions for user {} and role {}", authorities.size(), key.userId(), key.roleId());
+        return new AuthorizationSnapshot(AuthorizationSnapshot.copyOf(user), key.roleId(), authorities);
+    }
+
+    private record Key(Long userId, Long roleId) {
+    }
+}
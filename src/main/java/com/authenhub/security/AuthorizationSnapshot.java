@@ -0,0 +1,41 @@
+package com.authenhub.security;
+
+import com.authenhub.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Set;
+
+/**
+ * Immutable result of resolving a (userId, roleId) pair: the principal placed into the
+ * security context and the authorities granted by the role.
+ */
+public record AuthorizationSnapshot(User principal, Long roleId, Set<GrantedAuthority> authorities) {
+
+    public AuthorizationSnapshot {
+        authorities = Set.copyOf(authorities);
+    }
+
+    /**
+     * Detached copy of the user without the password hash, so the cached principal can be
+     * shared between requests without leaking or being mutated by callers.
+     */
+    public static User copyOf(User user) {
+        return User.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .fullName(user.getFullName())
+                .avatar(user.getAvatar())
+                .role(user.getRole())
+                .roleId(user.getRoleId())
+                .active(user.isActive())
+                .lastLogin(user.getLastLogin())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .provider(user.getProvider())
+                .socialProvider(user.getSocialProvider())
+                .socialId(user.getSocialId())
+                .tokensValidAfter(user.getTokensValidAfter())
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.authenhub.security;
+
+/**
+ * Access class of a request path, resolved by {@link RouteClassifier}.
+ */
+public enum RouteAccess {
+    /**
+     * Static resources and health checks: no authentication, correlation id, logging or access tracking
+     */
+    IGNORED,
+    /**
+     * Login, registration and similar endpoints: open to everyone, the token is not processed
+     */
+    PUBLIC,
+    /**
+     * Open to everyone, the token is processed when present
+     */
+    OPTIONAL,
+    /**
+     * Requires an authenticated user
+     */
+    AUTHENTICATED,
+    /**
+     * Administration endpoints, requires the {@code ADMIN} role
+     */
+    ADMIN;
+
+    public boolean isPermitAll() {
+        return this == IGNORED || this == PUBLIC || this == OPTIONAL;
+    }
+}
@@ -0,0 +1,103 @@
+package com.authenhub.security;
+
+import com.authenhub.config.security.SecurityRouteProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single source of truth for which paths are public, authenticated or admin.
+ * <p>
+ * Prefixes from {@link SecurityRouteProperties} are compiled once into a character trie, so a
+ * lookup walks the path once and returns the class of the longest matching prefix. A prefix
+ * ending with {@code /} also matches the bare path, so {@code /admin/} covers {@code /admin}. Both
+ * {@code SecurityConfig} and the request filters classify paths through this component.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteClassifier {
+
+    private static final RouteAccess DEFAULT_ACCESS = RouteAccess.AUTHENTICATED;
+
+    private final SecurityRouteProperties routeProperties;
+
+    private final Node root = new Node();
+
+    @PostConstruct
+    void init() {
+        register(routeProperties.getIgnored(), RouteAccess.IGNORED);
+        register(routeProperties.getPublicPaths(), RouteAccess.PUBLIC);
+        register(routeProperties.getOptional(), RouteAccess.OPTIONAL);
+        register(routeProperties.getAuthenticated(), RouteAccess.AUTHENTICATED);
+        register(routeProperties.getAdmin(), RouteAccess.ADMIN);
+    }
+
+    public RouteAccess classify(String path) {
+        if (path == null) {
+            return DEFAULT_ACCESS;
+        }
+
+        RouteAccess access = DEFAULT_ACCESS;
+        Node node = root;
+        for (int i = 0; i < path.length() && node != null; i++) {
+            node = node.children.get(path.charAt(i));
+            if (node != null && node.access != null) {
+                access = node.access;
+            }
+        }
+        if (node != null && node.exactAccess != null) {
+            access = node.exactAccess;
+        }
+        return access;
+    }
+
+    public RouteAccess classify(HttpServletRequest request) {
+        return classify(request.getRequestURI());
+    }
+
+    /**
+     * Request matcher for Spring Security rules
+     */
+    public RequestMatcher matcher(RouteAccess first, RouteAccess... rest) {
+        Set<RouteAccess> accesses = EnumSet.of(first, rest);
+        return request -> accesses.contains(classify(request));
+    }
+
+    private void register(List<String> prefixes, RouteAccess access) {
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            if (node.access != null && node.access != access) {
+                log.warn("Route prefix {} is declared as both {} and {}, using {}", prefix, node.access, access, access);
+            }
+            node.access = access;
+            // "/admin/" must not leave "/admin" to a shorter, weaker prefix
+            if (prefix.length() > 1 && prefix.endsWith("/")) {
+                Node bare = root;
+                for (int i = 0; i < prefix.length() - 1; i++) {
+                    bare = bare.children.get(prefix.charAt(i));
+                }
+                bare.exactAccess = access;
+            }
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private RouteAccess access;
+        // Access of the path ending exactly here, from a prefix with a trailing slash
+        private RouteAccess exactAccess;
+    }
+}
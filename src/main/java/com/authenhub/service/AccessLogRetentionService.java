@@ -0,0 +1,216 @@
+package com.authenhub.service;
+
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.application.AccessLogRetentionProperties;
+import com.authenhub.entity.mongo.AccessLog;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps access log storage bounded.
+ * <p>
+ * PostgreSQL: {@code access_logs} is range partitioned by month. Partitions are created ahead of time and whole
+ * partitions older than the raw retention are dropped, so expiry never turns into a bulk DELETE.
+ * MongoDB: the timestamp index carries a TTL, the server expires raw logs itself.
+ * Rollup buckets are pruned per granularity by {@link AccessLogRollupService#prune()}, day sketch checkpoints
+ * follow the day rollup retention.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessLogRetentionService {
+
+    private static final String TIMESTAMP_INDEX = "idx_access_logs_timestamp";
+    private static final String PARTITION_PREFIX = "access_logs_p";
+    private static final String DEFAULT_PARTITION = "access_logs_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int DELETE_CHUNK_SIZE = 10000;
+
+    private final MongoTemplate mongoTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSwitcherConfig databaseConfig;
+    private final AccessLogRetentionProperties properties;
+    private final AccessLogRollupService accessLogRollupService;
+    private final AccessLogSketchService accessLogSketchService;
+
+    @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}")
+    private String timezone;
+
+    private ZoneId zone;
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(timezone);
+        if (databaseConfig.isMongoActive()) {
+            ensureTimestampIndex();
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Access log retention: raw {} days, rollups minute {} / hour {} / day {} days",
+                properties.getRawDays(), properties.getMinuteRollupDays(), properties.getHourRollupDays(),
+                properties.getDayRollupDays());
+    }
+
+    /**
+     * One retention pass: partitions (PostgreSQL) and rollup pruning. Raw Mongo logs expire through the TTL index.
+     */
+    public void run() {
+        if (!databaseConfig.isMongoActive()) {
+            maintainPartitions();
+        }
+        accessLogRollupService.prune();
+        // Day sketches live as long as day rollups
+        accessLogSketchService.prune(properties.getDayRollupDays());
+    }
+
+    @Scheduled(fixedDelayString = "${access-log.retention.interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void runSafely() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            run();
+        } catch (Exception e) {
+            // Keep the schedule alive, the next pass retries
+            log.error("Access log retention pass failed", e);
+        }
+    }
+
+    private void ensureTimestampIndex() {
+        boolean expire = properties.isEnabled() && properties.getRawDays() > 0;
+        Index index = new Index().on("timestamp", Sort.Direction.ASC).named(TIMESTAMP_INDEX);
+        if (expire) {
+            index.expire(Duration.ofDays(properties.getRawDays()));
+        }
+        try {
+            mongoTemplate.indexOps(AccessLog.class).ensureIndex(index);
+        } catch (Exception e) {
+            if (!expire) {
+                log.error("Could not create the access_logs timestamp index", e);
+                return;
+            }
+            // The index already exists with another (or no) TTL, change it in place instead of rebuilding it
+            try {
+                mongoTemplate.executeCommand(new Document("collMod", mongoTemplate.getCollectionName(AccessLog.class))
+                        .append("index", new Document("name", TIMESTAMP_INDEX)
+                                .append("expireAfterSeconds", Duration.ofDays(properties.getRawDays()).toSeconds())));
+            } catch (Exception collModError) {
+                log.error("Could not set the TTL of the access_logs timestamp index", collModError);
+            }
+        }
+    }
+
+    private void maintainPartitions() {
+        LocalDate horizon = properties.getRawDays() > 0 ? LocalDate.now(zone).minusDays(properties.getRawDays()) : null;
+        if (!isPartitioned()) {
+            // Bảng cũ chưa phân vùng (xem create_tables.sql): xoá dần theo lô
+            if (horizon != null) {
+                deleteOlderThan("access_logs", horizon);
+            }
+            return;
+        }
+
+        YearMonth current = YearMonth.now(zone);
+        for (int i = 0; i <= properties.getPremakeMonths(); i++) {
+            createPartition(current.plusMonths(i));
+        }
+        if (horizon == null) {
+            return;
+        }
+        List<String> partitions = jdbcTemplate.queryForList(""
+                + "SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = 'access_logs'", String.class);
+        for (String partition : partitions) {
+            if (partition.equals(DEFAULT_PARTITION)) {
+                deleteOlderThan(DEFAULT_PARTITION, horizon);
+                continue;
+            }
+            YearMonth month = partitionMonth(partition);
+            // Drop only partitions whose whole range is past the horizon
+            if (month != null && !month.plusMonths(1).atDay(1).isAfter(horizon)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped access log partition {}", partition);
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        Integer count = jdbcTemplate.queryForObject(""
+                + "SELECT COUNT(*) FROM pg_partitioned_table pt "
+                + "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'access_logs'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private void createPartition(YearMonth month) {
+        // Partition names and bounds are generated here, never taken from input
+        String partition = PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        // Rows of that month may already sit in the default partition, which blocks a plain PARTITION OF.
+        // Move them into the new table and attach it, all in one statement so it is atomic
+        String sql = ""
+                + "DO $$ BEGIN "
+                + "IF NOT EXISTS (SELECT 1 FROM pg_class WHERE relname = '" + partition + "') THEN "
+                + "CREATE TABLE " + partition + " (LIKE access_logs INCLUDING DEFAULTS); "
+                + "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp >= " + from
+                + " AND timestamp < " + to + " RETURNING *) "
+                + "INSERT INTO " + partition + " SELECT * FROM moved; "
+                + "ALTER TABLE access_logs ATTACH PARTITION " + partition + " FOR VALUES FROM (" + from + ") TO (" + to + "); "
+                + "END IF; "
+                + "END $$";
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (DataAccessException e) {
+            log.error("Could not create access log partition {}, its rows stay in {}", partition, DEFAULT_PARTITION, e);
+        }
+    }
+
+    private void deleteOlderThan(String table, LocalDate horizon) {
+        String sql = "DELETE FROM " + table + " WHERE ctid IN "
+                + "(SELECT ctid FROM " + table + " WHERE timestamp < ? LIMIT " + DELETE_CHUNK_SIZE + ")";
+        Timestamp cutoff = Timestamp.valueOf(horizon.atStartOfDay());
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(sql, cutoff);
+            total += deleted;
+        } while (deleted == DELETE_CHUNK_SIZE);
+        if (total > 0) {
+            log.info("Deleted {} access logs older than {} from {}", total, horizon, table);
+        }
+    }
+
+    private static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,634 @@
+package com.authenhub.service;
+
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.application.AccessLogRetentionProperties;
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
+import com.authenhub.dto.AccessLogDTO;
+import com.authenhub.entity.mongo.AccessLog;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Minute / hour / day pre-aggregates of access logs.
+ * <p>
+ * Every batch written by the ingestion pipeline is folded into the three granularities with upserts that add to
+ * the existing counters. Buckets are keyed by route template, not the raw path, so ids in paths do not create a
+ * row each, and carry the event type and login outcome so logins are counted the same way as on raw logs. A range
+ * query is answered by stitching the coarsest buckets that fit entirely inside the range and reading raw logs for
+ * the partial minutes at both edges. Anything before rollups became available can span days, it is aggregated by
+ * the database with the raw log stats query and merged in.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessLogRollupService {
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        Instant floor(Instant instant, ZoneId zone) {
+            return instant.atZone(zone).truncatedTo(unit).toInstant();
+        }
+
+        Instant ceil(Instant instant, ZoneId zone) {
+            Instant floor = floor(instant, zone);
+            return floor.equals(instant) ? floor : floor.atZone(zone).plus(1, unit).toInstant();
+        }
+    }
+
+    private record Key(String route, String method, String statusClass, String eventType, String outcome,
+                       String browser, String deviceType, String userId) {
+    }
+
+    private record Bucket(Granularity granularity, Instant start, Key key) {
+    }
+
+    private static final class Counter {
+        private long count;
+        private long totalResponseTimeMs;
+        private String username;
+
+        private void add(long count, long totalResponseTimeMs, String username) {
+            this.count += count;
+            this.totalResponseTimeMs += totalResponseTimeMs;
+            if (username != null) {
+                this.username = username;
+            }
+        }
+    }
+
+    // One stitched piece of a range: a granularity (null for raw logs) over [from, to)
+    private record Segment(Granularity granularity, Instant from, Instant to) {
+    }
+
+    static final String COLLECTION = "access_log_rollups";
+    private static final int TOP_LIMIT = 10;
+
+    private static final String UPSERT_SQL = ""
+            + "INSERT INTO access_log_rollups (granularity, bucket_start, route, method, status_class, event_type, "
+            + "outcome, browser, device_type, user_id, username, count, total_response_time_ms) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (granularity, bucket_start, route, method, status_class, event_type, outcome, browser, "
+            + "device_type, user_id) "
+            + "DO UPDATE SET count = access_log_rollups.count + EXCLUDED.count, "
+            + "total_response_time_ms = access_log_rollups.total_response_time_ms + EXCLUDED.total_response_time_ms, "
+            + "username = COALESCE(EXCLUDED.username, access_log_rollups.username)";
+
+    private final MongoTemplate mongoTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSwitcherConfig databaseConfig;
+    private final AccessLogRetentionProperties retentionProperties;
+
+    @Value("${access-log.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}")
+    private String timezone;
+
+    private ZoneId zone;
+    // Rollups are complete from this instant on, earlier ranges are answered from raw logs
+    private volatile Instant availableFrom;
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(timezone);
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (databaseConfig.isMongoActive()) {
+                // Buckets from before the route key cannot be merged with the new ones, raw logs cover that range
+                long legacy = mongoTemplate.remove(Query.query(Criteria.where("route").exists(false)), COLLECTION)
+                        .getDeletedCount();
+                if (legacy > 0) {
+                    log.info("Removed {} access log rollup buckets keyed by raw endpoint", legacy);
+                }
+            }
+            Instant earliest = findAvailableFrom();
+            availableFrom = earliest != null ? earliest : Granularity.MINUTE.ceil(Instant.now(), zone);
+            if (databaseConfig.isMongoActive()) {
+                mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                        .on("granularity", Sort.Direction.ASC)
+                        .on("bucket_start", Sort.Direction.ASC)
+                        .named("idx_rollup_granularity_bucket"));
+            }
+            log.info("Access log rollups available from {}", availableFrom);
+        } catch (Exception e) {
+            // Without a usable rollup store every query simply stays on raw logs
+            log.error("Access log rollups could not be initialised, analytics stay on raw logs", e);
+            availableFrom = null;
+        }
+    }
+
+    /**
+     * Whether [start, end] can be answered from rollups, the part before {@code availableFrom} is read from raw logs
+     */
+    public boolean covers(Timestamp start, Timestamp end) {
+        return enabled && availableFrom != null && start != null && end != null;
+    }
+
+    /**
+     * Add a batch of freshly written access logs to the minute, hour and day buckets
+     */
+    public void fold(List<AccessLogDTO> accessLogs) {
+        if (!enabled || availableFrom == null || accessLogs.isEmpty()) {
+            return;
+        }
+        Map<Bucket, Counter> buckets = new HashMap<>();
+        for (AccessLogDTO accessLog : accessLogs) {
+            if (accessLog.getTimestamp() == null) {
+                continue;
+            }
+            Instant timestamp = accessLog.getTimestamp().toInstant();
+            Key key = new Key(
+                    route(accessLog.getRoute(), accessLog.getEndpoint()),
+                    normalize(accessLog.getMethod()),
+                    statusClass(accessLog.getStatusCode()),
+                    name(accessLog.getEventType()),
+                    name(accessLog.getOutcome()),
+                    normalize(accessLog.getBrowser()),
+                    normalize(accessLog.getDeviceType()),
+                    normalize(accessLog.getUserId()));
+            for (Granularity granularity : Granularity.values()) {
+                buckets.computeIfAbsent(new Bucket(granularity, granularity.floor(timestamp, zone), key), b -> new Counter())
+                        .add(1, accessLog.getResponseTimeMs(), accessLog.getUsername());
+            }
+        }
+        if (databaseConfig.isMongoActive()) {
+            upsertMongo(buckets);
+        } else {
+            upsertPostgres(buckets);
+        }
+    }
+
+    /**
+     * Same result shape as {@link AccessLogService#getAccessStats}, stitched from rollups plus raw edge minutes
+     *
+     * @param aggregateRaw stats of raw logs in [from, to) computed by the database, in the same shape, used for
+     *                     the part of the range before rollups became available
+     */
+    public Map<String, Object> getAccessStats(Timestamp start, Timestamp end,
+                                              BiFunction<Timestamp, Timestamp, Map<String, Object>> aggregateRaw) {
+        // Raw log bounds are inclusive, make the end exclusive by moving it just past the requested instant
+        Instant from = alignToRetained(start.toInstant(), false);
+        Instant to = alignToRetained(end.toInstant().plusMillis(1), true);
+        List<Segment> segments = new ArrayList<>();
+        // Nothing was folded before availableFrom, that part comes from raw logs only
+        Instant rollupFrom = from.isBefore(availableFrom) ? availableFrom : from;
+        if (rollupFrom.isAfter(to)) {
+            rollupFrom = to;
+        }
+        Map<String, Object> preRollup = from.isBefore(rollupFrom)
+                ? aggregateRaw.apply(Timestamp.from(from), Timestamp.from(rollupFrom))
+                : Map.of();
+        if (rollupFrom.isBefore(to)) {
+            segments.addAll(plan(rollupFrom, to));
+        }
+
+        Map<Instant, Map<Key, Counter>> rows = new HashMap<>();
+        List<Segment> rollupSegments = segments.stream().filter(s -> s.granularity() != null).toList();
+        if (!rollupSegments.isEmpty()) {
+            if (databaseConfig.isMongoActive()) {
+                readRollupsMongo(rollupSegments, rows);
+            } else {
+                readRollupsPostgres(rollupSegments, rows);
+            }
+        }
+        for (Segment segment : segments) {
+            if (segment.granularity() == null) {
+                // Partial edge minutes, at most a minute of logs each
+                readRaw(segment.from(), segment.to(), rows);
+            }
+        }
+        return summarize(rows, preRollup);
+    }
+
+    /**
+     * Cover [from, to) with the coarsest whole buckets, raw logs only for the partial minutes at the edges
+     */
+    private List<Segment> plan(Instant from, Instant to) {
+        List<Segment> segments = new ArrayList<>();
+        Instant minuteFrom = Granularity.MINUTE.ceil(from, zone);
+        Instant minuteTo = Granularity.MINUTE.floor(to, zone);
+        if (!minuteFrom.isBefore(minuteTo)) {
+            segments.add(new Segment(null, from, to));
+            return segments;
+        }
+        addSegment(segments, null, from, minuteFrom);
+        addSegment(segments, null, minuteTo, to);
+        split(segments, Granularity.HOUR, minuteFrom, minuteTo);
+        return segments;
+    }
+
+    private void split(List<Segment> segments, Granularity granularity, Instant from, Instant to) {
+        Granularity finer = Granularity.values()[granularity.ordinal() - 1];
+        Instant coarseFrom = granularity.ceil(from, zone);
+        Instant coarseTo = granularity.floor(to, zone);
+        if (!coarseFrom.isBefore(coarseTo)) {
+            addSegment(segments, finer, from, to);
+            return;
+        }
+        addSegment(segments, finer, from, coarseFrom);
+        addSegment(segments, finer, coarseTo, to);
+        if (granularity == Granularity.DAY) {
+            addSegment(segments, Granularity.DAY, coarseFrom, coarseTo);
+        } else {
+            split(segments, Granularity.values()[granularity.ordinal() + 1], coarseFrom, coarseTo);
+        }
+    }
+
+    private void addSegment(List<Segment> segments, Granularity granularity, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        // Buckets already pruned by retention are read from raw logs instead, which outlive the fine tiers
+        if (granularity != null && expired(from, retentionDays(granularity))) {
+            granularity = null;
+        }
+        segments.add(new Segment(granularity, from, to));
+    }
+
+    /**
+     * Range edges older than the raw log retention are rounded out to the finest rollup tier still kept there
+     */
+    private Instant alignToRetained(Instant instant, boolean up) {
+        if (!expired(instant, retentionProperties.getRawDays())) {
+            return instant;
+        }
+        for (Granularity granularity : Granularity.values()) {
+            if (granularity == Granularity.DAY || !expired(instant, retentionDays(granularity))) {
+                return up ? granularity.ceil(instant, zone) : granularity.floor(instant, zone);
+            }
+        }
+        return instant;
+    }
+
+    /**
+     * Delete buckets older than the retention of their granularity
+     */
+    public void prune() {
+        for (Granularity granularity : Granularity.values()) {
+            int days = retentionDays(granularity);
+            if (days <= 0) {
+                continue;
+            }
+            Instant horizon = Instant.now().minus(days, ChronoUnit.DAYS);
+            long deleted;
+            if (databaseConfig.isMongoActive()) {
+                deleted = mongoTemplate.remove(Query.query(Criteria.where("granularity").is(granularity.name())
+                        .and("bucket_start").lt(Date.from(horizon))), COLLECTION).getDeletedCount();
+            } else {
+                deleted = jdbcTemplate.update("DELETE FROM access_log_rollups WHERE granularity = ? AND bucket_start < ?",
+                        granularity.name(), Timestamp.from(horizon));
+            }
+            if (deleted > 0) {
+                log.info("Pruned {} {} rollup buckets older than {}", deleted, granularity, horizon);
+            }
+        }
+    }
+
+    private int retentionDays(Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> retentionProperties.getMinuteRollupDays();
+            case HOUR -> retentionProperties.getHourRollupDays();
+            case DAY -> retentionProperties.getDayRollupDays();
+        };
+    }
+
+    private boolean expired(Instant instant, int retentionDays) {
+        return retentionProperties.isEnabled() && retentionDays > 0
+                && instant.isBefore(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+    }
+
+    private void upsertMongo(Map<Bucket, Counter> buckets) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        buckets.forEach((bucket, counter) -> {
+            Key key = bucket.key();
+            Query query = Query.query(Criteria.where("granularity").is(bucket.granularity().name())
+                    .and("bucket_start").is(Date.from(bucket.start()))
+                    .and("route").is(key.route())
+                    .and("method").is(key.method())
+                    .and("status_class").is(key.statusClass())
+                    .and("event_type").is(key.eventType())
+                    .and("outcome").is(key.outcome())
+                    .and("browser").is(key.browser())
+                    .and("device_type").is(key.deviceType())
+                    .and("user_id").is(key.userId()));
+            Update update = new Update()
+                    .inc("count", counter.count)
+                    .inc("total_response_time_ms", counter.totalResponseTimeMs);
+            if (counter.username != null) {
+                update.set("username", counter.username);
+            }
+            bulk.upsert(query, update);
+        });
+        bulk.execute();
+    }
+
+    private void upsertPostgres(Map<Bucket, Counter> buckets) {
+        List<Map.Entry<Bucket, Counter>> entries = new ArrayList<>(buckets.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            Bucket bucket = entry.getKey();
+            Key key = bucket.key();
+            ps.setString(1, bucket.granularity().name());
+            ps.setTimestamp(2, Timestamp.from(bucket.start()));
+            ps.setString(3, key.route());
+            ps.setString(4, key.method());
+            ps.setString(5, key.statusClass());
+            ps.setString(6, key.eventType());
+            ps.setString(7, key.outcome());
+            ps.setString(8, key.browser());
+            ps.setString(9, key.deviceType());
+            ps.setString(10, key.userId());
+            ps.setString(11, entry.getValue().username);
+            ps.setLong(12, entry.getValue().count);
+            ps.setLong(13, entry.getValue().totalResponseTimeMs);
+        });
+    }
+
+    private void readRollupsMongo(List<Segment> segments, Map<Instant, Map<Key, Counter>> rows) {
+        List<Criteria> ranges = segments.stream()
+                .map(segment -> Criteria.where("granularity").is(segment.granularity().name())
+                        .and("bucket_start").gte(Date.from(segment.from())).lt(Date.from(segment.to())))
+                .toList();
+        Query query = Query.query(new Criteria().orOperator(ranges));
+        for (Document document : mongoTemplate.find(query, Document.class, COLLECTION)) {
+            Key key = new Key(
+                    document.getString("route"),
+                    document.getString("method"),
+                    document.getString("status_class"),
+                    document.getString("event_type"),
+                    document.getString("outcome"),
+                    document.getString("browser"),
+                    document.getString("device_type"),
+                    document.getString("user_id"));
+            addRow(rows, document.getDate("bucket_start").toInstant(), key,
+                    ((Number) document.get("count")).longValue(),
+                    ((Number) document.get("total_response_time_ms")).longValue(),
+                    document.getString("username"));
+        }
+    }
+
+    private void readRollupsPostgres(List<Segment> segments, Map<Instant, Map<Key, Counter>> rows) {
+        StringBuilder sql = new StringBuilder(""
+                + "SELECT bucket_start, route, method, status_class, event_type, outcome, browser, device_type, "
+                + "user_id, username, count, total_response_time_ms FROM access_log_rollups WHERE ");
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            sql.append(i == 0 ? "" : " OR ").append("(granularity = ? AND bucket_start >= ? AND bucket_start < ?)");
+            params.add(segments.get(i).granularity().name());
+            params.add(Timestamp.from(segments.get(i).from()));
+            params.add(Timestamp.from(segments.get(i).to()));
+        }
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Key key = new Key(
+                    rs.getString("route"),
+                    rs.getString("method"),
+                    rs.getString("status_class"),
+                    rs.getString("event_type"),
+                    rs.getString("outcome"),
+                    rs.getString("browser"),
+                    rs.getString("device_type"),
+                    rs.getString("user_id"));
+            addRow(rows, rs.getTimestamp("bucket_start").toInstant(), key,
+                    rs.getLong("count"), rs.getLong("total_response_time_ms"), rs.getString("username"));
+        }, params.toArray());
+    }
+
+    private void readRaw(Instant from, Instant to, Map<Instant, Map<Key, Counter>> rows) {
+        if (databaseConfig.isMongoActive()) {
+            Query query = Query.query(Criteria.where("timestamp").gte(Date.from(from)).lt(Date.from(to)));
+            query.fields().include("timestamp", "route", "endpoint", "method", "statusCode", "eventType", "outcome",
+                    "browser", "deviceType", "userId", "username", "responseTimeMs");
+            for (AccessLog accessLog : mongoTemplate.find(query, AccessLog.class)) {
+                addRaw(rows, accessLog.getTimestamp(), route(accessLog.getRoute(), accessLog.getEndpoint()),
+                        accessLog.getMethod(), accessLog.getStatusCode(), name(accessLog.getEventType()),
+                        name(accessLog.getOutcome()), accessLog.getBrowser(), accessLog.getDeviceType(),
+                        accessLog.getUserId(), accessLog.getUsername(), accessLog.getResponseTimeMs());
+            }
+            return;
+        }
+        String sql = ""
+                + "SELECT timestamp, route, endpoint, method, status_code, event_type, outcome, browser, device_type, "
+                + "user_id, username, response_time_ms FROM access_logs WHERE timestamp >= ? AND timestamp < ?";
+        jdbcTemplate.query(sql, rs -> {
+            addRaw(rows, rs.getTimestamp("timestamp"), route(rs.getString("route"), rs.getString("endpoint")),
+                    rs.getString("method"), rs.getInt("status_code"), normalize(rs.getString("event_type")),
+                    normalize(rs.getString("outcome")), rs.getString("browser"), rs.getString("device_type"),
+                    rs.getString("user_id"), rs.getString("username"), rs.getLong("response_time_ms"));
+        }, Timestamp.from(from), Timestamp.from(to));
+    }
+
+    private void addRaw(Map<Instant, Map<Key, Counter>> rows, Timestamp timestamp, String route, String method,
+                        int statusCode, String eventType, String outcome, String browser, String deviceType,
+                        String userId, String username, long responseTimeMs) {
+        if (timestamp == null) {
+            return;
+        }
+        Key key = new Key(route, normalize(method), statusClass(statusCode), eventType, outcome, normalize(browser),
+                normalize(deviceType), normalize(userId));
+        addRow(rows, timestamp.toInstant(), key, 1, responseTimeMs, username);
+    }
+
+    private void addRow(Map<Instant, Map<Key, Counter>> rows, Instant instant, Key key, long count,
+                        long totalResponseTimeMs, String username) {
+        // Rows are kept per day, the finest split any section of the stats needs
+        rows.computeIfAbsent(Granularity.DAY.floor(instant, zone), day -> new HashMap<>())
+                .computeIfAbsent(key, k -> new Counter())
+                .add(count, totalResponseTimeMs, username);
+    }
+
+    private Map<String, Object> summarize(Map<Instant, Map<Key, Counter>> rows, Map<String, Object> preRollup) {
+        long totalVisits = longValue(preRollup.get("totalVisits"));
+        long totalLogins = longValue(preRollup.get("totalLogins"));
+        long successfulLogins = longValue(preRollup.get("successfulLogins"));
+        Map<String, Long> daily = new TreeMap<>();
+        Map<String, Counter> browsers = new HashMap<>();
+        Map<String, Counter> devices = new HashMap<>();
+        Map<String, Counter> endpoints = new HashMap<>();
+        Map<String, Counter> users = new HashMap<>();
+
+        for (Map<String, Object> row : rows(preRollup, "dailyVisits")) {
+            daily.merge(String.valueOf(row.get("date")), longValue(row.get("count")), Long::sum);
+        }
+        mergeRows(browsers, rows(preRollup, "browserStats"), row -> 0L, row -> null);
+        mergeRows(devices, rows(preRollup, "deviceStats"), row -> 0L, row -> null);
+        mergeRows(endpoints, rows(preRollup, "topEndpoints"),
+                row -> Math.round(doubleValue(row.get("avgResponseTime")) * longValue(row.get("count"))), row -> null);
+        mergeRows(users, rows(preRollup, "topUsers"), row -> 0L, row -> (String) row.get("username"));
+
+        for (Map.Entry<Instant, Map<Key, Counter>> day : rows.entrySet()) {
+            String date = LocalDate.ofInstant(day.getKey(), zone).toString();
+            for (Map.Entry<Key, Counter> row : day.getValue().entrySet()) {
+                Key key = row.getKey();
+                Counter counter = row.getValue();
+                totalVisits += counter.count;
+                daily.merge(date, counter.count, Long::sum);
+                browsers.computeIfAbsent(key.browser(), k -> new Counter()).add(counter.count, 0, null);
+                devices.computeIfAbsent(key.deviceType(), k -> new Counter()).add(counter.count, 0, null);
+                endpoints.computeIfAbsent(key.route(), k -> new Counter())
+                        .add(counter.count, counter.totalResponseTimeMs, null);
+                users.computeIfAbsent(key.userId(), k -> new Counter()).add(counter.count, 0, counter.username);
+                // Same classification as the raw log query: eventType LOGIN, outcome SUCCESS
+                if (AccessEventType.LOGIN.name().equals(key.eventType())) {
+                    totalLogins += counter.count;
+                    if (LoginOutcome.SUCCESS.name().equals(key.outcome())) {
+                        successfulLogins += counter.count;
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalVisits", totalVisits);
+        List<Map<String, Object>> dailyVisits = new ArrayList<>();
+        daily.forEach((date, count) -> {
+            Map<String, Object> dayCount = new HashMap<>();
+            dayCount.put("date", date);
+            dayCount.put("count", count);
+            dailyVisits.add(dayCount);
+        });
+        stats.put("dailyVisits", dailyVisits);
+        stats.put("browserStats", top(browsers, Integer.MAX_VALUE, counter -> Map.of()));
+        stats.put("deviceStats", top(devices, Integer.MAX_VALUE, counter -> Map.of()));
+        stats.put("topEndpoints", top(endpoints, TOP_LIMIT,
+                counter -> Map.of("avgResponseTime", (double) counter.totalResponseTimeMs / counter.count)));
+        stats.put("topUsers", top(users, TOP_LIMIT, counter -> {
+            Map<String, Object> extra = new HashMap<>();
+            extra.put("username", counter.username);
+            return extra;
+        }));
+        stats.put("totalLogins", totalLogins);
+        stats.put("successfulLogins", successfulLogins);
+        stats.put("failedLogins", totalLogins - successfulLogins);
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> rows(Map<String, Object> stats, String section) {
+        Object rows = stats.get(section);
+        return rows instanceof List<?> list ? (List<Map<String, Object>>) list : List.of();
+    }
+
+    private static void mergeRows(Map<String, Counter> groups, List<Map<String, Object>> rows,
+                                  Function<Map<String, Object>, Long> totalResponseTimeMs,
+                                  Function<Map<String, Object>, String> username) {
+        for (Map<String, Object> row : rows) {
+            Object id = row.get("_id");
+            groups.computeIfAbsent(id == null ? "" : String.valueOf(id), k -> new Counter())
+                    .add(longValue(row.get("count")), totalResponseTimeMs.apply(row), username.apply(row));
+        }
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static double doubleValue(Object value) {
+        return value instanceof Number number ? number.doubleValue() : 0D;
+    }
+
+    private static List<Map<String, Object>> top(Map<String, Counter> groups, int limit,
+                                                 Function<Counter, Map<String, Object>> extra) {
+        return groups.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Counter> e) -> e.getValue().count).reversed())
+                .limit(limit)
+                .map(entry -> {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("_id", StringUtils.isEmpty(entry.getKey()) ? null : entry.getKey());
+                    row.put("count", entry.getValue().count);
+                    row.putAll(extra.apply(entry.getValue()));
+                    return row;
+                })
+                .toList();
+    }
+
+    /**
+     * Rollups are complete from the first minute bucket, unless retention has pruned the minute tier: hour
+     * buckets older than it show that, and the first whole hour (or day) bucket is the start instead
+     */
+    private Instant findAvailableFrom() {
+        Instant earliest = findEarliestBucket(Granularity.MINUTE);
+        if (earliest == null) {
+            return null;
+        }
+        Instant from = earliest;
+        for (Granularity coarser : List.of(Granularity.HOUR, Granularity.DAY)) {
+            Instant coarse = findEarliestBucket(coarser);
+            if (coarse == null || !coarse.isBefore(coarser.floor(earliest, zone))) {
+                break;
+            }
+            // The first bucket of a tier may be partial
+            earliest = coarse;
+            from = coarse.atZone(zone).plus(1, coarser.unit).toInstant();
+        }
+        return from;
+    }
+
+    private Instant findEarliestBucket(Granularity granularity) {
+        if (databaseConfig.isMongoActive()) {
+            Query query = Query.query(Criteria.where("granularity").is(granularity.name()))
+                    .with(Sort.by(Sort.Direction.ASC, "bucket_start"))
+                    .limit(1);
+            Document first = mongoTemplate.findOne(query, Document.class, COLLECTION);
+            return first != null ? first.getDate("bucket_start").toInstant() : null;
+        }
+        Timestamp first = jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket_start) FROM access_log_rollups WHERE granularity = ?",
+                Timestamp.class, granularity.name());
+        return first != null ? first.toInstant() : null;
+    }
+
+    private static String statusClass(int statusCode) {
+        return statusCode <= 0 ? "" : (statusCode / 100) + "xx";
+    }
+
+    // Key columns are part of the primary key on PostgreSQL, so missing values are stored as empty strings
+    private static String normalize(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? "" : value.name();
+    }
+
+    // Logs written before routes were tracked only have the raw path
+    private static String route(String route, String endpoint) {
+        return normalize(route != null ? route : endpoint);
+    }
+}
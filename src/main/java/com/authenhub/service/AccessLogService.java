@@ -1,25 +1,47 @@
 package com.authenhub.service;
 
+import com.authenhub.bean.log.LoginActivity;
+import com.authenhub.bean.log.LoginActivityPage;
 import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.filter.CorrelationIdGenerator;
+import com.authenhub.constant.enums.AccessEventType;
+import com.authenhub.constant.enums.LoginOutcome;
 import com.authenhub.entity.mongo.AccessLog;
+import com.authenhub.event.EndpointLatencyHistograms;
 import com.authenhub.repository.AccessLogRepository;
 import com.authenhub.service.interfaces.IAccessLogService;
 import com.authenhub.utils.TimestampUtils;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -30,84 +52,427 @@ public class AccessLogService implements IAccessLogService {
     private final JdbcTemplate jdbcTemplate;
     private final DatabaseSwitcherConfig databaseConfig;
     private final AccessLogRepository accessLogRepository;
+    private final AccessLogRollupService accessLogRollupService;
+    private final AccessLogSketchService accessLogSketchService;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final EndpointLatencyHistograms endpointLatencyHistograms;
+    private final CorrelationIdGenerator correlationIdGenerator;
+
+    private static final int TOP_LIMIT = 10;
+    private static final int PRE_ROLLUP_TOP_LIMIT = 1000;
+    private static final int LOGIN_ACTIVITY_BATCH_SIZE = 500;
+    private static final int LOGIN_ACTIVITY_MAX_LIMIT = 1000;
+    private static final DateTimeFormatter HOUR_BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
+
+    @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}")
+    private String timezone;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        if (!databaseConfig.isMongoActive()) {
+            return;
+        }
+        try {
+            // Login counts are answered from this index alone
+            mongoTemplate.indexOps(AccessLog.class).ensureIndex(new Index()
+                    .on("eventType", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.ASC)
+                    .on("outcome", Sort.Direction.ASC)
+                    .named("idx_access_logs_event_type_timestamp_outcome"));
+            // Keyset pagination of login activity: (timestamp, _id) descending within LOGIN events
+            mongoTemplate.indexOps(AccessLog.class).ensureIndex(new Index()
+                    .on("eventType", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.DESC)
+                    .on("id", Sort.Direction.DESC)
+                    .named("idx_access_logs_event_type_timestamp_id"));
+        } catch (Exception e) {
+            log.error("Could not create the access_logs indexes", e);
+        }
+    }
 
     @Override
     public Map<String, Object> getAccessStats(Timestamp start, Timestamp end) {
-        Map<String, Object> stats = new HashMap<>();
-
         // If no date range provided, default to last 30 days
         if (start == null) {
             end = TimestampUtils.now();
             start = TimestampUtils.addDays(end, -30);
         }
+        if (end == null) {
+            end = TimestampUtils.now();
+        }
 
-        // Get total visits
-        long totalVisits = accessLogRepository.countByDateRange(start, end);
-        stats.put("totalVisits", totalVisits);
-
-        // Get daily visits
-        List<Map<String, Object>> dailyVisits = countByDay(start, end);
-        stats.put("dailyVisits", dailyVisits);
+        // Latency percentiles are per node and since startup, they are served by getEndpointLatency only
+        return analyticsResultCache.get("access-stats", start, end, null, this::computeAccessStats);
+    }
 
-        // Get browser stats
-        List<Map<String, Object>> browserStats = countByBrowser(start, end);
-        stats.put("browserStats", browserStats);
+    private Map<String, Object> computeAccessStats(Timestamp start, Timestamp end) {
+        // Pre-aggregated buckets when they cover the range, otherwise one scan of the raw logs:
+        // $facet on MongoDB, GROUPING SETS on PostgreSQL
+        Map<String, Object> stats;
+        if (accessLogRollupService.covers(start, end)) {
+            // Top lists of the pre-rollup part are merged with the rollup counters, cut them deeper than TOP_LIMIT
+            stats = accessLogRollupService.getAccessStats(start, end,
+                    (from, to) -> aggregateStats(from, to, PRE_ROLLUP_TOP_LIMIT));
+        } else {
+            // Range bounds are inclusive, the aggregation takes an exclusive end
+            stats = aggregateStats(start, new Timestamp(end.getTime() + 1), TOP_LIMIT);
+        }
 
-        // Get device type stats
-        List<Map<String, Object>> deviceStats = countByDeviceType(start, end);
-        stats.put("deviceStats", deviceStats);
+        // Distinct users / IPs estimated from HyperLogLog sketches
+        stats.putAll(accessLogSketchService.getDistinctCounts(start, end));
+        return stats;
+    }
 
-        // Get top endpoints
-        List<Map<String, Object>> topEndpoints = getTopEndpoints(start, end);
-        stats.put("topEndpoints", topEndpoints);
+    /**
+     * Stats of the raw logs in [start, end), top endpoints are keyed by route like the rollups
+     */
+    private Map<String, Object> aggregateStats(Timestamp start, Timestamp end, int topLimit) {
+        return databaseConfig.isMongoActive()
+                ? aggregateStatsMongo(start, end, topLimit)
+                : aggregateStatsPostgres(start, end, topLimit);
+    }
 
-        // Get top users
-        List<Map<String, Object>> topUsers = getTopUsers(start, end);
-        stats.put("topUsers", topUsers);
+    private Map<String, Object> aggregateStatsMongo(Timestamp start, Timestamp end, int topLimit) {
+        AggregationExpression successfulLogin = ConditionalOperators
+                .when(ComparisonOperators.valueOf("outcome").equalToValue(LoginOutcome.SUCCESS.name()))
+                .then(1)
+                .otherwise(0);
+
+        FacetOperation facetOperation = Aggregation
+                .facet(Aggregation.count().as("count")).as("totalVisits")
+                .and(
+                        Aggregation.project().and(truncateTimestamp("day")).as("bucket"),
+                        Aggregation.group("bucket").count().as("count"),
+                        Aggregation.sort(Sort.Direction.ASC, "_id")
+                ).as("dailyVisits")
+                .and(
+                        Aggregation.group("browser").count().as("count"),
+                        Aggregation.sort(Sort.Direction.DESC, "count")
+                ).as("browserStats")
+                .and(
+                        Aggregation.group("deviceType").count().as("count"),
+                        Aggregation.sort(Sort.Direction.DESC, "count")
+                ).as("deviceStats")
+                .and(
+                        // Logs written before routes were tracked only have the raw path
+                        Aggregation.project("responseTimeMs")
+                                .and(ConditionalOperators.ifNull("route").thenValueOf("endpoint")).as("route"),
+                        Aggregation.group("route").count().as("count").avg("responseTimeMs").as("avgResponseTime"),
+                        Aggregation.sort(Sort.Direction.DESC, "count"),
+                        Aggregation.limit(topLimit)
+                ).as("topEndpoints")
+                .and(
+                        Aggregation.group("userId").count().as("count").first("username").as("username"),
+                        Aggregation.sort(Sort.Direction.DESC, "count"),
+                        Aggregation.limit(topLimit)
+                ).as("topUsers")
+                .and(
+                        Aggregation.match(Criteria.where("eventType").is(AccessEventType.LOGIN)),
+                        Aggregation.group().count().as("total").sum(successfulLogin).as("successful")
+                ).as("logins");
+
+        TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                AccessLog.class,
+                Aggregation.match(Criteria.where("timestamp").gte(start).lt(end)),
+                facetOperation
+        );
+        Document facets = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        if (facets == null) {
+            facets = new Document();
+        }
 
-        // Get login statistics
-        long totalLogins = accessLogRepository.countByEndpointContaining(start, end, "/auth/login");
-        long successfulLogins = accessLogRepository.countByEndpointAndStatusCode(start, end, "/auth/login", 200);
-        long failedLogins = totalLogins - successfulLogins;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalVisits", firstNumber(facets, "totalVisits", "count"));
+        List<Map<String, Object>> dailyVisits = new ArrayList<>();
+        for (Document day : facets.getList("dailyVisits", Document.class, List.of())) {
+            Map<String, Object> dayCount = new HashMap<>();
+            dayCount.put("date", formatBucket(day.getDate("_id"), "day"));
+            dayCount.put("count", day.get("count"));
+            dailyVisits.add(dayCount);
+        }
+        stats.put("dailyVisits", dailyVisits);
+        stats.put("browserStats", toRows(facets.getList("browserStats", Document.class, List.of())));
+        stats.put("deviceStats", toRows(facets.getList("deviceStats", Document.class, List.of())));
+        stats.put("topEndpoints", toRows(facets.getList("topEndpoints", Document.class, List.of())));
+        stats.put("topUsers", toRows(facets.getList("topUsers", Document.class, List.of())));
 
+        long totalLogins = firstNumber(facets, "logins", "total");
+        long successfulLogins = firstNumber(facets, "logins", "successful");
         stats.put("totalLogins", totalLogins);
         stats.put("successfulLogins", successfulLogins);
-        stats.put("failedLogins", failedLogins);
+        stats.put("failedLogins", totalLogins - successfulLogins);
+        return stats;
+    }
+
+    private Map<String, Object> aggregateStatsPostgres(Timestamp start, Timestamp end, int topLimit) {
+        // One grouping set per section, GROUPING() tells the sets apart from real NULL values
+        String sql = ""
+                + "WITH grouped AS ("
+                + " SELECT GROUPING(TO_CHAR(timestamp, 'YYYY-MM-DD')) AS g_day, GROUPING(browser) AS g_browser,"
+                + " GROUPING(device_type) AS g_device, GROUPING(COALESCE(route, endpoint)) AS g_endpoint,"
+                + " GROUPING(user_id) AS g_user,"
+                + " TO_CHAR(timestamp, 'YYYY-MM-DD') AS day, browser, device_type, COALESCE(route, endpoint) AS route_key,"
+                + " user_id,"
+                + " MAX(username) AS username, COUNT(*) AS count, AVG(response_time_ms) AS avg_response_time,"
+                + " COUNT(*) FILTER (WHERE event_type = 'LOGIN') AS total_logins,"
+                + " COUNT(*) FILTER (WHERE event_type = 'LOGIN' AND outcome = 'SUCCESS') AS successful_logins"
+                + " FROM access_logs"
+                + " WHERE timestamp >= ? AND timestamp < ?"
+                + " GROUP BY GROUPING SETS ((), (TO_CHAR(timestamp, 'YYYY-MM-DD')), (browser), (device_type),"
+                + " (COALESCE(route, endpoint)), (user_id))"
+                + "), ranked AS ("
+                + " SELECT *, ROW_NUMBER() OVER (PARTITION BY g_day, g_browser, g_device, g_endpoint, g_user"
+                + " ORDER BY count DESC) AS row_rank"
+                + " FROM grouped"
+                + ")"
+                + " SELECT * FROM ranked"
+                + " WHERE (g_endpoint = 1 AND g_user = 1) OR row_rank <= ?"
+                + " ORDER BY day ASC, count DESC";
 
+        Map<String, Object> stats = new HashMap<>();
+        List<Map<String, Object>> dailyVisits = new ArrayList<>();
+        List<Map<String, Object>> browserStats = new ArrayList<>();
+        List<Map<String, Object>> deviceStats = new ArrayList<>();
+        List<Map<String, Object>> topEndpoints = new ArrayList<>();
+        List<Map<String, Object>> topUsers = new ArrayList<>();
+        stats.put("totalVisits", 0L);
+        stats.put("totalLogins", 0L);
+        stats.put("successfulLogins", 0L);
+        stats.put("failedLogins", 0L);
+
+        jdbcTemplate.query(sql, rs -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("count", rs.getLong("count"));
+            if (rs.getInt("g_day") == 0) {
+                row.put("date", rs.getString("day"));
+                dailyVisits.add(row);
+            } else if (rs.getInt("g_browser") == 0) {
+                row.put("_id", rs.getString("browser"));
+                browserStats.add(row);
+            } else if (rs.getInt("g_device") == 0) {
+                row.put("_id", rs.getString("device_type"));
+                deviceStats.add(row);
+            } else if (rs.getInt("g_endpoint") == 0) {
+                row.put("_id", rs.getString("route_key"));
+                row.put("avgResponseTime", rs.getDouble("avg_response_time"));
+                topEndpoints.add(row);
+            } else if (rs.getInt("g_user") == 0) {
+                row.put("_id", rs.getString("user_id"));
+                row.put("username", rs.getString("username"));
+                topUsers.add(row);
+            } else {
+                long totalLogins = rs.getLong("total_logins");
+                long successfulLogins = rs.getLong("successful_logins");
+                stats.put("totalVisits", rs.getLong("count"));
+                stats.put("totalLogins", totalLogins);
+                stats.put("successfulLogins", successfulLogins);
+                stats.put("failedLogins", totalLogins - successfulLogins);
+            }
+        }, start, end, topLimit);
+
+        stats.put("dailyVisits", dailyVisits);
+        stats.put("browserStats", browserStats);
+        stats.put("deviceStats", deviceStats);
+        stats.put("topEndpoints", topEndpoints);
+        stats.put("topUsers", topUsers);
         return stats;
     }
 
+    private static long firstNumber(Document facets, String facet, String field) {
+        List<Document> rows = facets.getList(facet, Document.class, List.of());
+        if (rows.isEmpty() || !(rows.get(0).get(field) instanceof Number number)) {
+            return 0L;
+        }
+        return number.longValue();
+    }
+
+    private static List<Map<String, Object>> toRows(List<Document> documents) {
+        List<Map<String, Object>> rows = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            rows.add(new HashMap<>(document));
+        }
+        return rows;
+    }
+
     @Override
-    public List<Map<String, Object>> getLoginActivity(Timestamp start, Timestamp end) {
+    public List<LoginActivity> getLoginActivity(Timestamp start, Timestamp end) {
         // If no date range provided, default to last 30 days
         if (start == null) {
             end = TimestampUtils.now();
             start = TimestampUtils.addDays(end, -30);
         }
 
-        // Get login activity logs
-        List<AccessLog> loginLogs = accessLogRepository.findByTimestampBetween(start, end);
+        List<LoginActivity> loginActivity = new ArrayList<>();
+        forEachLoginActivity(start, end, loginActivity::add);
+        return loginActivity;
+    }
 
-        // Convert to response format
-        List<Map<String, Object>> loginActivity = new ArrayList<>();
+    @Override
+    public LoginActivityPage getLoginActivityPage(Timestamp start, Timestamp end, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, LOGIN_ACTIVITY_MAX_LIMIT));
+        // Lấy dư một dòng để biết còn trang tiếp theo hay không
+        List<AccessLog> rows = findLoginActivity(start, end, decodeLoginCursor(cursor), pageSize + 1);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeLoginCursor(rows.get(pageSize - 1));
+        }
 
-        for (AccessLog log : loginLogs) {
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("id", log.getId());
-            activity.put("username", log.getUsername() != null ? log.getUsername() : "anonymous");
-            activity.put("ip", log.getIpAddress());
-            activity.put("status", log.getStatusCode() == 200 ? "success" : "failed");
-            activity.put("timestamp", log.getTimestamp().toString());
-            activity.put("userAgent", log.getUserAgent());
+        List<LoginActivity> items = new ArrayList<>(rows.size());
+        for (AccessLog row : rows) {
+            items.add(toLoginActivity(row));
+        }
+        return new LoginActivityPage(items, nextCursor);
+    }
+
+    @Override
+    public void forEachLoginActivity(Timestamp start, Timestamp end, Consumer<LoginActivity> consumer) {
+        // Duyệt từng trang theo keyset (timestamp, id): chỉ giữ một trang trong bộ nhớ,
+        // và mỗi trang là một index range scan chứ không phải skip/offset
+        AccessLog after = null;
+        while (true) {
+            List<AccessLog> rows = findLoginActivity(start, end, after, LOGIN_ACTIVITY_BATCH_SIZE);
+            for (AccessLog row : rows) {
+                consumer.accept(toLoginActivity(row));
+            }
+            if (rows.size() < LOGIN_ACTIVITY_BATCH_SIZE) {
+                return;
+            }
+            after = rows.get(rows.size() - 1);
+        }
+    }
 
-            if (log.getStatusCode() != 200) {
-                activity.put("reason", "Authentication failed");
+    /**
+     * Đọc một trang đăng nhập, mới nhất trước, chỉ lấy các cột cần hiển thị.
+     *
+     * @param after dòng cuối của trang trước (chỉ dùng timestamp và id), null cho trang đầu
+     */
+    private List<AccessLog> findLoginActivity(Timestamp start, Timestamp end, AccessLog after, int limit) {
+        if (databaseConfig.isMongoActive()) {
+            Criteria criteria = Criteria.where("eventType").is(AccessEventType.LOGIN)
+                    .and("timestamp").gte(start).lte(end);
+            if (after != null) {
+                criteria.orOperator(
+                        Criteria.where("timestamp").lt(after.getTimestamp()),
+                        Criteria.where("timestamp").is(after.getTimestamp()).and("id").lt(new ObjectId(after.getId())));
             }
+            Query query = Query.query(criteria)
+                    .with(Sort.by(Sort.Direction.DESC, "timestamp", "id"))
+                    .limit(limit);
+            query.fields().include("id", "timestamp", "username", "ipAddress", "userAgent", "statusCode", "outcome");
+            return mongoTemplate.find(query, AccessLog.class);
+        }
 
-            loginActivity.add(activity);
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, timestamp, username, ip_address, user_agent, status_code, outcome
+                FROM access_logs
+                WHERE event_type = ? AND timestamp BETWEEN ? AND ?
+                """);
+        List<Object> params = new ArrayList<>(List.of(AccessEventType.LOGIN.name(), start, end));
+        if (after != null) {
+            sql.append(" AND (timestamp, id) < (?, ?)");
+            params.add(after.getTimestamp());
+            params.add(Long.parseLong(after.getId()));
         }
+        sql.append(" ORDER BY timestamp DESC, id DESC LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            AccessLog row = new AccessLog();
+            row.setId(String.valueOf(rs.getLong("id")));
+            row.setTimestamp(rs.getTimestamp("timestamp"));
+            row.setUsername(rs.getString("username"));
+            row.setIpAddress(rs.getString("ip_address"));
+            row.setUserAgent(rs.getString("user_agent"));
+            row.setStatusCode(rs.getInt("status_code"));
+            String outcome = rs.getString("outcome");
+            row.setOutcome(outcome != null ? LoginOutcome.valueOf(outcome) : null);
+            return row;
+        }, params.toArray());
+    }
 
-        return loginActivity;
+    private LoginActivity toLoginActivity(AccessLog row) {
+        LoginOutcome outcome = row.getOutcome() != null ? row.getOutcome() : LoginOutcome.ofStatus(row.getStatusCode());
+        boolean success = outcome == LoginOutcome.SUCCESS;
+        return new LoginActivity(
+                row.getId(),
+                row.getUsername() != null ? row.getUsername() : "anonymous",
+                row.getIpAddress(),
+                success ? "success" : "failed",
+                row.getTimestamp().toString(),
+                row.getUserAgent(),
+                success ? null : "Authentication failed");
+    }
+
+    /**
+     * Cursor là base64url của "instant|id" của dòng cuối trang, client chỉ cần gửi lại nguyên văn.
+     */
+    private String encodeLoginCursor(AccessLog last) {
+        String raw = last.getTimestamp().toInstant() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private AccessLog decodeLoginCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            String id = raw.substring(separator + 1);
+            boolean validId = databaseConfig.isMongoActive() ? ObjectId.isValid(id) : id.matches("\\d{1,19}");
+            if (separator < 0 || !validId) {
+                throw new IllegalArgumentException(raw);
+            }
+            AccessLog after = new AccessLog();
+            after.setTimestamp(Timestamp.from(Instant.parse(raw.substring(0, separator))));
+            after.setId(id);
+            return after;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalStateException("Invalid login activity cursor");
+        }
+    }
+
+    @Override
+    public Map<String, Object> countLogins(Timestamp start, Timestamp end) {
+        return analyticsResultCache.get("logins", start, end, null, this::computeLogins);
+    }
+
+    private Map<String, Object> computeLogins(Timestamp start, Timestamp end) {
+        long totalLogins;
+        long successfulLogins;
+        if (databaseConfig.isMongoActive()) {
+            totalLogins = accessLogRepository.countByEventTypeAndDateRange(AccessEventType.LOGIN, start, end);
+            successfulLogins = accessLogRepository.countByEventTypeAndOutcomeAndDateRange(
+                    AccessEventType.LOGIN, LoginOutcome.SUCCESS, start, end);
+        } else {
+            String sql = ""
+                    + "SELECT COUNT(*) AS total_logins, COUNT(*) FILTER (WHERE outcome = 'SUCCESS') AS successful_logins "
+                    + "FROM access_logs "
+                    + "WHERE event_type = 'LOGIN' AND timestamp BETWEEN ? AND ?";
+            long[] counts = jdbcTemplate.queryForObject(sql, (rs, rowNum) ->
+                    new long[]{rs.getLong("total_logins"), rs.getLong("successful_logins")}, start, end);
+            totalLogins = counts[0];
+            successfulLogins = counts[1];
+        }
+
+        Map<String, Object> logins = new HashMap<>();
+        logins.put("totalLogins", totalLogins);
+        logins.put("successfulLogins", successfulLogins);
+        logins.put("failedLogins", totalLogins - successfulLogins);
+        return logins;
+    }
+
+    @Override
+    public Map<String, Object> getEndpointLatency(int limit) {
+        // Recorded in memory by this node, not filtered by any date range
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("scope", "node");
+        latency.put("nodeId", correlationIdGenerator.getNodeId());
+        latency.put("since", endpointLatencyHistograms.getStartedAt());
+        latency.put("endpoints", endpointLatencyHistograms.getTopEndpoints(limit));
+        return latency;
     }
 
     /**
@@ -119,55 +484,93 @@ public class AccessLogService implements IAccessLogService {
      */
     @Override
     public List<Map<String, Object>> countByDay(Timestamp start, Timestamp end) {
-        if (databaseConfig.isMongoActive()) {
-            // Create match operation
-            MatchOperation matchOperation = Aggregation.match(Criteria.where("timestamp").gte(start).lte(end));
-
-            // Create projection operation to extract date
-            ProjectionOperation projectOperation = Aggregation.project()
-                    .andExpression("timestamp").as("date");
+        return countByPeriod(start, end, "day");
+    }
 
-            // Create sort operation
-            SortOperation sortOperation = Aggregation.sort(org.springframework.data.domain.Sort.Direction.ASC, "_id");
+    /**
+     * Count access logs per hour, day or week in the application timezone
+     *
+     * @param start the start date
+     * @param end   the end date
+     * @param unit  hour, day or week
+     * @return one row per bucket, oldest first
+     */
+    @Override
+    public List<Map<String, Object>> countByPeriod(Timestamp start, Timestamp end, String unit) {
+        String period = normalizePeriod(unit);
+        return analyticsResultCache.get("visits", start, end, period, (from, to) -> computeByPeriod(from, to, period));
+    }
 
-            // Create aggregation
-            Aggregation aggregation = Aggregation.newAggregation(
-                    matchOperation,
-                    projectOperation,
-                    sortOperation
+    private List<Map<String, Object>> computeByPeriod(Timestamp start, Timestamp end, String period) {
+        if (databaseConfig.isMongoActive()) {
+            // Bucketing happens on the server, only one document per bucket comes back
+            TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                    AccessLog.class,
+                    Aggregation.match(Criteria.where("timestamp").gte(start).lte(end)),
+                    Aggregation.project().and(truncateTimestamp(period)).as("bucket"),
+                    Aggregation.group("bucket").count().as("count"),
+                    Aggregation.sort(Sort.Direction.ASC, "_id")
             );
 
-            // Execute aggregation
-            AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, "access_logs", Map.class);
-
-            // Convert results to List<Map<String, Object>>
-            List<Map<String, Object>> dailyCounts = new ArrayList<>();
-            for (Map result : results.getMappedResults()) {
-                Map<String, Object> dailyCount = new HashMap<>();
-                dailyCount.put("_id", result.get("_id"));
-                dailyCount.put("count", result.get("count"));
-                dailyCounts.add(dailyCount);
+            List<Map<String, Object>> counts = new ArrayList<>();
+            for (Document result : mongoTemplate.aggregate(aggregation, Document.class).getMappedResults()) {
+                Map<String, Object> bucketCount = new HashMap<>();
+                bucketCount.put("date", formatBucket(result.getDate("_id"), period));
+                bucketCount.put("count", ((Number) result.get("count")).longValue());
+                counts.add(bucketCount);
             }
-
-            return dailyCounts;
+            return counts;
         } else {
-            // PostgreSQL implementation
+            // PostgreSQL implementation, timestamps are stored in the application timezone
             String sql = ""
-                    + "SELECT TO_CHAR(timestamp, 'YYYY-MM-DD') as date, COUNT(*) as count "
+                    + "SELECT date_trunc('" + period + "', timestamp) as bucket, COUNT(*) as count "
                     + "FROM access_logs "
                     + "WHERE timestamp BETWEEN ? AND ? "
-                    + "GROUP BY TO_CHAR(timestamp, 'YYYY-MM-DD') "
-                    + "ORDER BY date ASC";
+                    + "GROUP BY bucket "
+                    + "ORDER BY bucket ASC";
 
             return jdbcTemplate.query(sql, (rs, rowNum) -> {
-                Map<String, Object> dayCount = new HashMap<>();
-                dayCount.put("date", rs.getString("date"));
-                dayCount.put("count", rs.getLong("count"));
-                return dayCount;
+                Map<String, Object> bucketCount = new HashMap<>();
+                bucketCount.put("date", formatBucket(rs.getTimestamp("bucket"), period));
+                bucketCount.put("count", rs.getLong("count"));
+                return bucketCount;
             }, start, end);
         }
     }
 
+    /**
+     * {@code $dateTrunc} of the timestamp in the application timezone, weeks start on Monday
+     */
+    private AggregationExpression truncateTimestamp(String period) {
+        return context -> {
+            Document dateTrunc = new Document("date", "$timestamp")
+                    .append("unit", period)
+                    .append("timezone", timezone);
+            if ("week".equals(period)) {
+                dateTrunc.append("startOfWeek", "monday");
+            }
+            return new Document("$dateTrunc", dateTrunc);
+        };
+    }
+
+    private String formatBucket(Date bucket, String period) {
+        if (bucket == null) {
+            return null;
+        }
+        LocalDateTime start = LocalDateTime.ofInstant(bucket.toInstant(), ZoneId.of(timezone));
+        return "hour".equals(period) ? start.format(HOUR_BUCKET_FORMAT) : start.toLocalDate().toString();
+    }
+
+    private static String normalizePeriod(String unit) {
+        if (unit == null) {
+            return "day";
+        }
+        return switch (unit.toLowerCase()) {
+            case "hour", "week" -> unit.toLowerCase();
+            default -> "day";
+        };
+    }
+
     /**
      * Count access logs by browser
      *
@@ -177,6 +580,10 @@ public class AccessLogService implements IAccessLogService {
      */
     @Override
     public List<Map<String, Object>> countByBrowser(Timestamp start, Timestamp end) {
+        if (databaseConfig.isPostgresActive()) {
+            return countByColumnPostgres("browser", start, end, Integer.MAX_VALUE);
+        }
+
 
         MatchOperation matchOperation = Aggregation.match(Criteria.where("timestamp").gte(start).lte(end));
         GroupOperation groupOperation = Aggregation.group("browser")
@@ -185,14 +592,15 @@ public class AccessLogService implements IAccessLogService {
         SortOperation sortOperation = Aggregation.sort(Sort.Direction.DESC, "count");
 
         // Create aggregation
-        Aggregation aggregation = Aggregation.newAggregation(
+        TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                AccessLog.class,
                 matchOperation,
                 groupOperation,
                 sortOperation
         );
 
         // Execute aggregation
-        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, "access_logs", Map.class);
+        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, Map.class);
 
         // Convert results to List<Map<String, Object>>
         List<Map<String, Object>> browserCounts = new ArrayList<>();
@@ -215,6 +623,10 @@ public class AccessLogService implements IAccessLogService {
      */
     @Override
     public List<Map<String, Object>> countByDeviceType(Timestamp start, Timestamp end) {
+        if (databaseConfig.isPostgresActive()) {
+            return countByColumnPostgres("device_type", start, end, Integer.MAX_VALUE);
+        }
+
         // Create match operation
         MatchOperation matchOperation = Aggregation.match(Criteria.where("timestamp").gte(start).lte(end));
 
@@ -226,14 +638,15 @@ public class AccessLogService implements IAccessLogService {
         SortOperation sortOperation = Aggregation.sort(Sort.Direction.DESC, "count");
 
         // Create aggregation
-        Aggregation aggregation = Aggregation.newAggregation(
+        TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                AccessLog.class,
                 matchOperation,
                 groupOperation,
                 sortOperation
         );
 
         // Execute aggregation
-        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, "access_logs", Map.class);
+        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, Map.class);
 
         // Convert results to List<Map<String, Object>>
         List<Map<String, Object>> deviceTypeCounts = new ArrayList<>();
@@ -256,6 +669,14 @@ public class AccessLogService implements IAccessLogService {
      */
     @Override
     public List<Map<String, Object>> getTopEndpoints(Timestamp start, Timestamp end) {
+        return analyticsResultCache.get("top-endpoints", start, end, null, this::computeTopEndpoints);
+    }
+
+    private List<Map<String, Object>> computeTopEndpoints(Timestamp start, Timestamp end) {
+        if (databaseConfig.isPostgresActive()) {
+            return countByColumnPostgres("endpoint", start, end, TOP_LIMIT);
+        }
+
         // Create match operation
         MatchOperation matchOperation = Aggregation.match(Criteria.where("timestamp").gte(start).lte(end));
 
@@ -271,7 +692,8 @@ public class AccessLogService implements IAccessLogService {
         AggregationOperation limitOperation = Aggregation.limit(10);
 
         // Create aggregation
-        Aggregation aggregation = Aggregation.newAggregation(
+        TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                AccessLog.class,
                 matchOperation,
                 groupOperation,
                 sortOperation,
@@ -279,7 +701,7 @@ public class AccessLogService implements IAccessLogService {
         );
 
         // Execute aggregation
-        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, "access_logs", Map.class);
+        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, Map.class);
 
         // Convert results to List<Map<String, Object>>
         List<Map<String, Object>> topEndpoints = new ArrayList<>();
@@ -303,6 +725,14 @@ public class AccessLogService implements IAccessLogService {
      */
     @Override
     public List<Map<String, Object>> getTopUsers(Timestamp start, Timestamp end) {
+        return analyticsResultCache.get("top-users", start, end, null, this::computeTopUsers);
+    }
+
+    private List<Map<String, Object>> computeTopUsers(Timestamp start, Timestamp end) {
+        if (databaseConfig.isPostgresActive()) {
+            return countByColumnPostgres("user_id", start, end, TOP_LIMIT);
+        }
+
         // Create match operation
         MatchOperation matchOperation = Aggregation.match(Criteria.where("timestamp").gte(start).lte(end));
 
@@ -318,7 +748,8 @@ public class AccessLogService implements IAccessLogService {
         AggregationOperation limitOperation = Aggregation.limit(10);
 
         // Create aggregation
-        Aggregation aggregation = Aggregation.newAggregation(
+        TypedAggregation<AccessLog> aggregation = Aggregation.newAggregation(
+                AccessLog.class,
                 matchOperation,
                 groupOperation,
                 sortOperation,
@@ -326,7 +757,7 @@ public class AccessLogService implements IAccessLogService {
         );
 
         // Execute aggregation
-        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, "access_logs", Map.class);
+        AggregationResults<Map> results = mongoTemplate.aggregate(aggregation, Map.class);
 
         // Convert results to List<Map<String, Object>>
         List<Map<String, Object>> topUsers = new ArrayList<>();
@@ -341,6 +772,34 @@ public class AccessLogService implements IAccessLogService {
         return topUsers;
     }
 
+    /**
+     * Group access logs by one column on PostgreSQL, same row shape as the MongoDB aggregations
+     *
+     * @param column a column name constant, never user input
+     */
+    private List<Map<String, Object>> countByColumnPostgres(String column, Timestamp start, Timestamp end, int limit) {
+        String sql = ""
+                + "SELECT " + column + " AS group_key, COUNT(*) AS count, "
+                + "AVG(response_time_ms) AS avg_response_time, MAX(username) AS username "
+                + "FROM access_logs "
+                + "WHERE timestamp BETWEEN ? AND ? "
+                + "GROUP BY " + column + " "
+                + "ORDER BY count DESC "
+                + "LIMIT ?";
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("_id", rs.getString("group_key"));
+            row.put("count", rs.getLong("count"));
+            if ("endpoint".equals(column)) {
+                row.put("avgResponseTime", rs.getDouble("avg_response_time"));
+            } else if ("user_id".equals(column)) {
+                row.put("username", rs.getString("username"));
+            }
+            return row;
+        }, start, end, limit);
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -349,53 +808,4 @@ public class AccessLogService implements IAccessLogService {
         return request.getRemoteAddr();
     }
 
-    private void parseUserAgent(AccessLog accessLog) {
-        String userAgent = accessLog.getUserAgent();
-        if (userAgent == null) {
-            return;
-        }
-
-        // Simple parsing - in a real app you might use a library like UADetector or user-agent-utils
-        userAgent = userAgent.toLowerCase();
-
-        // Detect browser
-        if (userAgent.contains("firefox")) {
-            accessLog.setBrowser("Firefox");
-        } else if (userAgent.contains("chrome") && !userAgent.contains("edge")) {
-            accessLog.setBrowser("Chrome");
-        } else if (userAgent.contains("safari") && !userAgent.contains("chrome")) {
-            accessLog.setBrowser("Safari");
-        } else if (userAgent.contains("edge") || userAgent.contains("edg")) {
-            accessLog.setBrowser("Edge");
-        } else if (userAgent.contains("opera") || userAgent.contains("opr")) {
-            accessLog.setBrowser("Opera");
-        } else {
-            accessLog.setBrowser("Other");
-        }
-
-        // Detect OS
-        if (userAgent.contains("windows")) {
-            accessLog.setOperatingSystem("Windows");
-        } else if (userAgent.contains("mac os")) {
-            accessLog.setOperatingSystem("MacOS");
-        } else if (userAgent.contains("linux")) {
-            accessLog.setOperatingSystem("Linux");
-        } else if (userAgent.contains("android")) {
-            accessLog.setOperatingSystem("Android");
-        } else if (userAgent.contains("iphone") || userAgent.contains("ipad")) {
-            accessLog.setOperatingSystem("iOS");
-        } else {
-            accessLog.setOperatingSystem("Other");
-        }
-
-        // Detect device type
-        if (userAgent.contains("mobile") || userAgent.contains("iphone")) {
-            accessLog.setDeviceType("MOBILE");
-        } else if (userAgent.contains("tablet") || userAgent.contains("ipad")) {
-            accessLog.setDeviceType("TABLET");
-        } else {
-            accessLog.setDeviceType("DESKTOP");
-        }
-    }
-
 }
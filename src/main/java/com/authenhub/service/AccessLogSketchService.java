@@ -0,0 +1,388 @@
+package com.authenhub.service;
+
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.application.AccessLogSketchProperties;
+import com.authenhub.config.filter.CorrelationIdGenerator;
+import com.authenhub.dto.AccessLogDTO;
+import com.authenhub.event.AccessLogSketches;
+import com.authenhub.event.HyperLogLog;
+import com.authenhub.event.SpaceSavingSketch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate top-K and distinct counts from streaming sketches.
+ * <p>
+ * The ingestion pipeline records every flushed access log into the window of its day. Each node checkpoints its
+ * windows into {@code access_log_sketches}; a query merges the checkpoints of the other nodes with the live windows
+ * of this node, so it costs a few sketch merges instead of a scan of {@code access_logs}. Ranges are widened to
+ * whole days.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccessLogSketchService {
+
+    // One cached merge of the stored checkpoints of a day, with or without this node's own checkpoint
+    private record CheckpointKey(LocalDate day, boolean includeOwnNode) {
+    }
+
+    private record Checkpoint(LocalDate day, String nodeId, AccessLogSketches sketches) {
+    }
+
+    static final String COLLECTION = "access_log_sketches";
+    private static final int MAX_CACHED_DAYS = 400;
+    private static final TypeReference<List<SpaceSavingSketch.Entry>> ENTRIES = new TypeReference<>() {
+    };
+
+    private static final String UPSERT_SQL = ""
+            + "INSERT INTO access_log_sketches (day, node_id, top_endpoints, top_users, top_ips, distinct_users, "
+            + "distinct_ips, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (day, node_id) DO UPDATE SET top_endpoints = EXCLUDED.top_endpoints, "
+            + "top_users = EXCLUDED.top_users, top_ips = EXCLUDED.top_ips, distinct_users = EXCLUDED.distinct_users, "
+            + "distinct_ips = EXCLUDED.distinct_ips, updated_at = EXCLUDED.updated_at";
+
+    private final MongoTemplate mongoTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final DatabaseSwitcherConfig databaseConfig;
+    private final AccessLogSketchProperties properties;
+    private final CorrelationIdGenerator correlationIdGenerator;
+
+    @Value("${spring.jackson.time-zone:Asia/Ho_Chi_Minh}")
+    private String timezone;
+
+    private final ConcurrentMap<LocalDate, AccessLogSketches> windows = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Long> savedVersions = new ConcurrentHashMap<>();
+    private Cache<CheckpointKey, AccessLogSketches> checkpointCache;
+    private ZoneId zone;
+    private String nodeId;
+    private boolean checkpointsEnabled;
+
+    @PostConstruct
+    public void init() {
+        zone = ZoneId.of(timezone);
+        nodeId = correlationIdGenerator.getNodeId();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        // Other nodes' checkpoints change at most once per interval
+        checkpointCache = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_DAYS)
+                .expireAfterWrite(Duration.ofSeconds(properties.getCheckpointIntervalSeconds()))
+                .build();
+        // Checkpoints are keyed by node id, a shared or generated id would overwrite or orphan them
+        checkpointsEnabled = correlationIdGenerator.isConfiguredNodeId();
+        if (!checkpointsEnabled) {
+            log.warn("No app.node-id configured, access log sketches of this node are kept in memory only");
+            return;
+        }
+        try {
+            if (databaseConfig.isMongoActive()) {
+                mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index()
+                        .on("day", Sort.Direction.ASC)
+                        .on("node_id", Sort.Direction.ASC)
+                        .unique()
+                        .named("idx_sketch_day_node"));
+            }
+            // Resume this node's windows so the next checkpoint does not overwrite them with partial counts
+            LocalDate today = LocalDate.now(zone);
+            for (Checkpoint checkpoint : loadCheckpoints(today.minusDays(properties.getMemoryDays() - 1), today, true)) {
+                windows.put(checkpoint.day(), checkpoint.sketches());
+                savedVersions.put(checkpoint.day(), checkpoint.sketches().getVersion());
+            }
+        } catch (Exception e) {
+            log.error("Could not restore the access log sketches of node {}", nodeId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Save what was counted since the last scheduled checkpoint
+        checkpointSafely();
+    }
+
+    /**
+     * Add a batch of access logs to the windows of their days
+     */
+    public void record(List<AccessLogDTO> accessLogs) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        for (AccessLogDTO accessLog : accessLogs) {
+            if (accessLog.getTimestamp() == null) {
+                continue;
+            }
+            LocalDate day = LocalDate.ofInstant(accessLog.getTimestamp().toInstant(), zone);
+            windows.computeIfAbsent(day, d -> newSketches()).record(accessLog);
+        }
+    }
+
+    /**
+     * Approximate top routes, users and IPs plus distinct users and IPs of the days touching [start, end]
+     *
+     * @param limit rows per top list
+     */
+    public Map<String, Object> getApproximateStats(Timestamp start, Timestamp end, int limit) {
+        if (!properties.isEnabled()) {
+            throw new IllegalStateException("Access log sketches are disabled");
+        }
+        AccessLogSketches merged = merge(start, end);
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("topEndpoints", toRows(merged.getTopEndpoints().top(limit)));
+        stats.put("topUsers", toRows(merged.getTopUsers().top(limit)));
+        stats.put("topIps", toRows(merged.getTopIps().top(limit)));
+        stats.put("uniqueUsers", merged.getDistinctUsers().estimate());
+        stats.put("uniqueIps", merged.getDistinctIps().estimate());
+        return stats;
+    }
+
+    /**
+     * Estimated distinct users and IPs, empty when sketches are disabled
+     */
+    public Map<String, Object> getDistinctCounts(Timestamp start, Timestamp end) {
+        Map<String, Object> counts = new HashMap<>();
+        if (!properties.isEnabled()) {
+            return counts;
+        }
+        AccessLogSketches merged = merge(start, end);
+        counts.put("uniqueUsers", merged.getDistinctUsers().estimate());
+        counts.put("uniqueIps", merged.getDistinctIps().estimate());
+        return counts;
+    }
+
+    /**
+     * Save the windows that changed since their last checkpoint and release windows past the memory retention
+     */
+    public void checkpoint() {
+        LocalDate oldest = LocalDate.now(zone).minusDays(properties.getMemoryDays() - 1);
+        for (Map.Entry<LocalDate, AccessLogSketches> entry : windows.entrySet()) {
+            LocalDate day = entry.getKey();
+            long version = entry.getValue().getVersion();
+            if (checkpointsEnabled && version != savedVersions.getOrDefault(day, 0L)) {
+                save(day, entry.getValue().copy());
+                savedVersions.put(day, version);
+            }
+            // The checkpoint is now the only copy of this window (or, without checkpoints, it is dropped)
+            if (day.isBefore(oldest)) {
+                windows.remove(day);
+                savedVersions.remove(day);
+            }
+        }
+    }
+
+    /**
+     * Delete checkpoints of days older than the given retention
+     */
+    public void prune(int retentionDays) {
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate horizon = LocalDate.now(zone).minusDays(retentionDays);
+        if (databaseConfig.isMongoActive()) {
+            mongoTemplate.remove(Query.query(Criteria.where("day").lt(horizon.toString())), COLLECTION);
+        } else {
+            jdbcTemplate.update("DELETE FROM access_log_sketches WHERE day < ?", Date.valueOf(horizon));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${access-log.sketch.checkpoint-interval-seconds:60}",
+            initialDelayString = "${access-log.sketch.checkpoint-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void checkpointSafely() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (Exception e) {
+            // Unsaved windows keep their version gap and are retried next time
+            log.error("Checkpoint of access log sketches failed", e);
+        }
+    }
+
+    private AccessLogSketches merge(Timestamp start, Timestamp end) {
+        LocalDate from = LocalDate.ofInstant(start.toInstant(), zone);
+        LocalDate to = LocalDate.ofInstant(end.toInstant(), zone);
+        Set<CheckpointKey> keys = new LinkedHashSet<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            // Live windows replace this node's own checkpoint
+            keys.add(new CheckpointKey(day, !windows.containsKey(day)));
+        }
+
+        AccessLogSketches merged = newSketches();
+        checkpointCache.getAll(keys, this::loadMerged).values().forEach(merged::merge);
+        for (CheckpointKey key : keys) {
+            AccessLogSketches live = windows.get(key.day());
+            if (live != null) {
+                merged.merge(live);
+            }
+        }
+        return merged;
+    }
+
+    private Map<CheckpointKey, AccessLogSketches> loadMerged(Set<? extends CheckpointKey> keys) {
+        LocalDate from = keys.stream().map(CheckpointKey::day).min(LocalDate::compareTo).orElseThrow();
+        LocalDate to = keys.stream().map(CheckpointKey::day).max(LocalDate::compareTo).orElseThrow();
+        Map<LocalDate, CheckpointKey> byDay = new HashMap<>();
+        keys.forEach(key -> byDay.put(key.day(), key));
+
+        Map<CheckpointKey, AccessLogSketches> loaded = new HashMap<>();
+        for (Checkpoint checkpoint : loadCheckpoints(from, to, false)) {
+            CheckpointKey key = byDay.get(checkpoint.day());
+            if (key == null || (!key.includeOwnNode() && nodeId.equals(checkpoint.nodeId()))) {
+                continue;
+            }
+            loaded.computeIfAbsent(key, k -> newSketches()).merge(checkpoint.sketches());
+        }
+        // Days without checkpoints are cached as empty too
+        keys.forEach(key -> loaded.computeIfAbsent(key, k -> newSketches()));
+        return loaded;
+    }
+
+    private void save(LocalDate day, AccessLogSketches sketches) {
+        if (databaseConfig.isMongoActive()) {
+            Query query = Query.query(Criteria.where("day").is(day.toString()).and("node_id").is(nodeId));
+            Update update = new Update()
+                    .set("top_endpoints", toDocuments(sketches.getTopEndpoints()))
+                    .set("top_users", toDocuments(sketches.getTopUsers()))
+                    .set("top_ips", toDocuments(sketches.getTopIps()))
+                    .set("distinct_users", sketches.getDistinctUsers().toBytes())
+                    .set("distinct_ips", sketches.getDistinctIps().toBytes())
+                    .set("updated_at", new java.util.Date());
+            mongoTemplate.upsert(query, update, COLLECTION);
+            return;
+        }
+        jdbcTemplate.update(UPSERT_SQL,
+                Date.valueOf(day),
+                nodeId,
+                toJson(sketches.getTopEndpoints()),
+                toJson(sketches.getTopUsers()),
+                toJson(sketches.getTopIps()),
+                sketches.getDistinctUsers().toBytes(),
+                sketches.getDistinctIps().toBytes(),
+                new Timestamp(System.currentTimeMillis()));
+    }
+
+    private List<Checkpoint> loadCheckpoints(LocalDate from, LocalDate to, boolean ownNodeOnly) {
+        List<Checkpoint> checkpoints = new ArrayList<>();
+        if (databaseConfig.isMongoActive()) {
+            // ISO dates sort the same as strings
+            Criteria criteria = Criteria.where("day").gte(from.toString()).lte(to.toString());
+            if (ownNodeOnly) {
+                criteria.and("node_id").is(nodeId);
+            }
+            for (Document document : mongoTemplate.find(Query.query(criteria), Document.class, COLLECTION)) {
+                AccessLogSketches sketches = new AccessLogSketches(
+                        fromDocuments(document.getList("top_endpoints", Document.class)),
+                        fromDocuments(document.getList("top_users", Document.class)),
+                        fromDocuments(document.getList("top_ips", Document.class)),
+                        HyperLogLog.fromBytes(document.get("distinct_users", Binary.class).getData()),
+                        HyperLogLog.fromBytes(document.get("distinct_ips", Binary.class).getData()));
+                checkpoints.add(new Checkpoint(LocalDate.parse(document.getString("day")),
+                        document.getString("node_id"), sketches));
+            }
+            return checkpoints;
+        }
+        String sql = "SELECT day, node_id, top_endpoints, top_users, top_ips, distinct_users, distinct_ips "
+                + "FROM access_log_sketches WHERE day BETWEEN ? AND ?" + (ownNodeOnly ? " AND node_id = ?" : "");
+        List<Object> params = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (ownNodeOnly) {
+            params.add(nodeId);
+        }
+        jdbcTemplate.query(sql, rs -> {
+            AccessLogSketches sketches = new AccessLogSketches(
+                    fromJson(rs.getString("top_endpoints")),
+                    fromJson(rs.getString("top_users")),
+                    fromJson(rs.getString("top_ips")),
+                    HyperLogLog.fromBytes(rs.getBytes("distinct_users")),
+                    HyperLogLog.fromBytes(rs.getBytes("distinct_ips")));
+            checkpoints.add(new Checkpoint(rs.getDate("day").toLocalDate(), rs.getString("node_id"), sketches));
+        }, params.toArray());
+        return checkpoints;
+    }
+
+    private AccessLogSketches newSketches() {
+        return new AccessLogSketches(properties.getTopCapacity(), properties.getHllPrecision());
+    }
+
+    private static List<Map<String, Object>> toRows(List<SpaceSavingSketch.Entry> entries) {
+        List<Map<String, Object>> rows = new ArrayList<>(entries.size());
+        for (SpaceSavingSketch.Entry entry : entries) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("_id", entry.key());
+            row.put("count", entry.count());
+            // count - error is a guaranteed lower bound
+            row.put("error", entry.error());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<Document> toDocuments(SpaceSavingSketch sketch) {
+        return sketch.entries().stream()
+                .map(entry -> new Document("key", entry.key())
+                        .append("count", entry.count())
+                        .append("error", entry.error()))
+                .toList();
+    }
+
+    private SpaceSavingSketch fromDocuments(List<Document> documents) {
+        List<SpaceSavingSketch.Entry> entries = documents.stream()
+                .map(document -> new SpaceSavingSketch.Entry(
+                        document.getString("key"),
+                        ((Number) document.get("count")).longValue(),
+                        ((Number) document.get("error")).longValue()))
+                .toList();
+        return new SpaceSavingSketch(properties.getTopCapacity(), entries);
+    }
+
+    private String toJson(SpaceSavingSketch sketch) {
+        try {
+            return objectMapper.writeValueAsString(sketch.entries());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize sketch", e);
+        }
+    }
+
+    private SpaceSavingSketch fromJson(String json) {
+        try {
+            return new SpaceSavingSketch(properties.getTopCapacity(), objectMapper.readValue(json, ENTRIES));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read sketch checkpoint", e);
+        }
+    }
+}
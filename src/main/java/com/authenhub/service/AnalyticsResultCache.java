@@ -0,0 +1,140 @@
+package com.authenhub.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * In-process cache of analytics results keyed by (metric, start, end, granularity).
+ * <p>
+ * Ranges that end before {@code now - open-range-grace} cannot change any more and are kept for
+ * {@code closed-ttl-minutes}. Ranges touching "now" are snapped outward to {@code open-ttl-seconds} steps, so
+ * "last 30 days" requests issued a few seconds apart share one entry, and expire after the same step.
+ * Concurrent misses on one key wait for a single computation on the first caller's thread.
+ */
+@Slf4j
+@Component
+public class AnalyticsResultCache {
+
+    private record Key(String metric, long start, long end, String granularity, boolean open) {
+    }
+
+    @Value("${analytics.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.cache.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${analytics.cache.open-ttl-seconds:30}")
+    private long openTtlSeconds;
+
+    @Value("${analytics.cache.closed-ttl-minutes:1440}")
+    private long closedTtlMinutes;
+
+    // Logs of the last moments may still sit in the ingestion buffer
+    @Value("${analytics.cache.open-range-grace-seconds:60}")
+    private long openRangeGraceSeconds;
+
+    private AsyncCache<Key, Object> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Key, Object>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Object value, long currentTime) {
+                        return key.open()
+                                ? TimeUnit.SECONDS.toNanos(openTtlSeconds)
+                                : TimeUnit.MINUTES.toNanos(closedTtlMinutes);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Object value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Cached result of {@code loader} for the normalized range, the loader is called with that range
+     *
+     * @param metric      name of the computation, part of the key
+     * @param granularity bucket unit or any other parameter of the computation, may be null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String metric, Timestamp start, Timestamp end, String granularity,
+                     BiFunction<Timestamp, Timestamp, T> loader) {
+        if (!enabled || start == null || end == null) {
+            return loader.apply(start, end);
+        }
+        Key key = normalize(metric, start, end, granularity);
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> result = cache.get(key, (k, executor) -> created);
+        if (result == created) {
+            // This caller owns the computation, identical requests meanwhile wait on the same future
+            try {
+                created.complete(loader.apply(new Timestamp(key.start()), new Timestamp(key.end())));
+            } catch (RuntimeException e) {
+                // A failed future is dropped from the cache, the next request retries
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return (T) result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.synchronous().stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", cache.synchronous().estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+
+    private Key normalize(String metric, Timestamp start, Timestamp end, String granularity) {
+        long now = System.currentTimeMillis();
+        boolean open = end.getTime() > now - TimeUnit.SECONDS.toMillis(openRangeGraceSeconds);
+        if (!open) {
+            return new Key(metric, start.getTime(), end.getTime(), granularity, false);
+        }
+        long step = Math.max(1, TimeUnit.SECONDS.toMillis(openTtlSeconds));
+        long alignedStart = Math.floorDiv(start.getTime(), step) * step;
+        long alignedEnd = Math.floorDiv(end.getTime() + step - 1, step) * step;
+        return new Key(metric, alignedStart, alignedEnd, granularity, true);
+    }
+}
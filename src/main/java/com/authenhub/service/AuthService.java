@@ -6,28 +6,35 @@ import com.authenhub.bean.auth.AuthResponse;
 import com.authenhub.bean.auth.UserInfo;
 import com.authenhub.bean.response.UserInfoResponse;
 import com.authenhub.config.application.JsonMapper;
+import com.authenhub.constant.JwtConstant;
 import com.authenhub.entity.Permission;
 import com.authenhub.entity.Role;
 import com.authenhub.entity.RolePermission;
 import com.authenhub.entity.User;
 import com.authenhub.entity.mongo.PasswordResetToken;
 import com.authenhub.exception.*;
+import com.authenhub.filter.JwtAuthenticationFilter;
 import com.authenhub.filter.JwtService;
 import com.authenhub.repository.adapter.PasswordResetTokenRepositoryAdapter;
 import com.authenhub.repository.jpa.PermissionJpaRepository;
 import com.authenhub.repository.jpa.RoleJpaRepository;
 import com.authenhub.repository.jpa.RolePermissionRepository;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.service.SocialLoginService.SocialUserInfo;
 import com.authenhub.service.interfaces.IAuthService;
 import com.authenhub.utils.TimestampUtils;
 import com.authenhub.utils.Utils;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -44,6 +51,8 @@ public class AuthService implements IAuthService {
     private final PasswordEncoder passwordEncoder;
     private final RoleJpaRepository roleRepository;
     private final SocialLoginService socialLoginService;
+    private final RefreshTokenService refreshTokenService;
+    private final AuthorizationCache authorizationCache;
     private final AuthenticationManager authenticationManager;
     private final PermissionJpaRepository permissionJpaRepository;
     private final RolePermissionRepository rolePermissionRepository;
@@ -75,15 +84,14 @@ public class AuthService implements IAuthService {
         log.info("Register new user successfully with id {}", user.getId());
         // Tạo token và response
         String token = jwtService.generateToken(user);
-        return AuthResponse.builder()
-                .token(token)
-                .user(UserInfo.fromUser(user))
-                .build();
+        return buildAuthResponse(user, token, refreshTokenService.issue(user));
     }
 
     @Override
     public AuthResponse login(AuthRequest request) {
         log.info("Begin login with request {}", jsonMapper.toJson(request));
+        // Login runs before any principal exists, keep the attempted username for the access log
+        recordLoginUsername(request.getUsername());
         // Xác thực thông tin đăng nhập
         authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -102,10 +110,7 @@ public class AuthService implements IAuthService {
         log.info("Login user successfully with id {}", user.getId());
         // Tạo token và response
         String token = jwtService.createToken(user);
-        return AuthResponse.builder()
-                .token(token)
-                .user(UserInfo.fromUser(user))
-                .build();
+        return buildAuthResponse(user, token, refreshTokenService.issue(user));
     }
 
     @Override
@@ -133,23 +138,33 @@ public class AuthService implements IAuthService {
                     return userRepository.save(newUser);
                 });
 
+        recordLoginUsername(user.getUsername());
+
         // Cập nhật thời gian đăng nhập
         user.setLastLogin(TimestampUtils.now());
         userRepository.save(user);
 
         // Tạo token và response
         String token = jwtService.generateToken(user);
-        return AuthResponse.builder()
-                .token(token)
-                .user(UserInfo.fromUser(user))
-                .build();
+        return buildAuthResponse(user, token, refreshTokenService.issue(user));
+    }
+
+    private void recordLoginUsername(String username) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && StringUtils.isNotBlank(username)) {
+            attributes.setAttribute(JwtAuthenticationFilter.LOGIN_USERNAME_ATTRIBUTE, username,
+                    RequestAttributes.SCOPE_REQUEST);
+        }
     }
 
     @Override
-    public Object getCurrentUser(String token) {
-        log.info("Begin get current user with token {}", token);
-        // Lấy username từ token
-        String username = jwtService.extractUsername(token);
+    public Object getCurrentUser(Claims claims) {
+        if (claims == null) {
+            throw new RuntimeException("Token không hợp lệ");
+        }
+        // Lấy username từ claims đã được filter xác thực
+        String username = claims.getSubject();
+        log.info("Begin get current user {}", username);
         var user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User không tồn tại"));
 
@@ -208,6 +223,8 @@ public class AuthService implements IAuthService {
                         return userRepository.save(newUser);
                     });
 
+            recordLoginUsername(user.getUsername());
+
             // Update last login time
             user.setLastLogin(TimestampUtils.now());
             userRepository.save(user);
@@ -216,10 +233,7 @@ public class AuthService implements IAuthService {
             String token = jwtService.generateToken(user);
 
             // Return response
-            return AuthResponse.builder()
-                    .token(token)
-                    .user(UserInfo.fromUser(user))
-                    .build();
+            return buildAuthResponse(user, token, refreshTokenService.issue(user));
         } catch (Exception e) {
             log.error("OAuth2 callback error", e);
             throw new RuntimeException("OAuth2 authentication failed: " + e.getMessage());
@@ -278,7 +292,11 @@ public class AuthService implements IAuthService {
         // Update password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setUpdatedAt(TimestampUtils.now());
+        user.setTokensValidAfter(user.getUpdatedAt());
         userRepository.save(user);
+        // Access tokens issued before the change are refused from now on, see JwtAuthenticationFilter
+        authorizationCache.invalidateUser(user.getId());
+        refreshTokenService.revokeAll(user.getId());
 
         // Mark token as used
         resetToken.setUsed(true);
@@ -304,19 +322,40 @@ public class AuthService implements IAuthService {
         // Update password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         user.setUpdatedAt(TimestampUtils.now());
+        user.setTokensValidAfter(user.getUpdatedAt());
         userRepository.save(user);
+        // Access tokens issued before the change are refused from now on, see JwtAuthenticationFilter
+        authorizationCache.invalidateUser(user.getId());
+        refreshTokenService.revokeAll(user.getId());
     }
 
     @Override
-    public AuthResponse refreshToken(String token) {
-        log.info("Begin refresh token with token {}", token);
-        String username = jwtService.extractUsername(token);
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ErrorApiException("123", "User không tồn tại"));
-        String refreshToken = jwtService.createToken(user);
+    public void logout(String token, Claims claims, String refreshToken) {
+        log.info("Begin logout");
+        jwtService.revokeToken(token, claims);
+        if (StringUtils.isNotBlank(refreshToken)) {
+            refreshTokenService.revokeFamily(refreshToken);
+        } else if (claims != null && claims.get(JwtConstant.USER_ID_FIELD) != null) {
+            // Without the refresh token the session cannot be told apart, end all of them
+            refreshTokenService.revokeAll(claims.get(JwtConstant.USER_ID_FIELD, Long.class));
+        }
+    }
+
+    @Override
+    public AuthResponse refreshToken(String refreshToken) {
+        log.info("Begin refresh token");
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+        User user = rotation.user();
+        String token = jwtService.createToken(user);
         log.info("Refresh token successfully with id {}", user.getId());
+        return buildAuthResponse(user, token, rotation.refreshToken());
+    }
+
+    private AuthResponse buildAuthResponse(User user, String token, String refreshToken) {
         return AuthResponse.builder()
-                .token(refreshToken)
+                .token(token)
+                .refreshToken(refreshToken)
+                .expiresIn(jwtService.getAccessTokenExpiration())
                 .user(UserInfo.fromUser(user))
                 .build();
     }
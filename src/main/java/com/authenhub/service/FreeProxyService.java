@@ -2,31 +2,29 @@ package com.authenhub.service;
 
 import com.authenhub.bean.proxy.CheckResult;
 import com.authenhub.bean.proxy.ImportResult;
+import com.authenhub.bean.proxy.ProxyNextRequest;
 import com.authenhub.bean.proxy.ProxyRequest;
 import com.authenhub.bean.proxy.ProxyResponse;
+import com.authenhub.bean.proxy.ProxySweepReport;
+import com.authenhub.config.application.ProxyHealthCheckProperties;
+import com.authenhub.config.application.ProxyRecheckProperties;
 import com.authenhub.entity.User;
 import com.authenhub.entity.mongo.FreeProxy;
-import com.authenhub.repository.FreeProxyRepository;
+import com.authenhub.repository.adapter.FreeProxyRepositoryAdapter;
 import com.authenhub.service.interfaces.IFreeProxyService;
 import com.authenhub.utils.TimestampUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.net.InetSocketAddress;
-import java.net.Proxy;
-import java.net.ProxySelector;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.sql.Timestamp;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,10 +33,22 @@ import java.util.stream.Collectors;
 public class FreeProxyService implements IFreeProxyService {
 
     private final UserContext userContext;
-    private final FreeProxyRepository proxyRepository;
+    private final FreeProxyRepositoryAdapter proxyRepository;
+    private final ProxyHealthCheckEngine healthCheckEngine;
+    private final ProxyCheckResultWriter resultWriter;
+    private final ProxyHealthCheckProperties healthCheckProperties;
+    private final ProxyRecheckProperties recheckProperties;
+    private final ProxyRecheckPolicy recheckPolicy;
+    private final ProxyPool proxyPool;
+
+    private final AtomicBoolean sweepRunning = new AtomicBoolean();
+    private volatile ProxySweepReport lastSweepReport;
 
     @Override
     public List<ProxyResponse> getAllProxies() {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getAll();
+        }
         return proxyRepository.findAll().stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -46,6 +56,9 @@ public class FreeProxyService implements IFreeProxyService {
 
     @Override
     public List<ProxyResponse> getActiveProxies() {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getActive();
+        }
         return proxyRepository.findByIsActiveTrue().stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -82,21 +95,27 @@ public class FreeProxyService implements IFreeProxyService {
         proxy.setUptime(0.0);
 
         // Check the proxy before saving
-        CheckResult checkResult = checkProxy(proxy);
+        CheckResult checkResult = healthCheckEngine.check(proxy);
         proxy.setResponseTimeMs(checkResult.getResponseTimeMs());
         proxy.setLastChecked(checkResult.getCheckedAt());
         proxy.setActive(checkResult.isWorking());
 
+        proxy.setNextCheckAt(recheckPolicy.nextCheckAt(proxy, checkResult));
+
         if (checkResult.isWorking()) {
             proxy.setSuccessCount(1);
+            proxy.setConsecutiveSuccesses(1);
             proxy.setUptime(100.0);
         } else {
             proxy.setFailCount(1);
+            proxy.setConsecutiveFailures(1);
             proxy.setUptime(0.0);
         }
 
         FreeProxy savedProxy = proxyRepository.save(proxy);
-        return ProxyResponse.fromEntity(savedProxy);
+        ProxyResponse response = ProxyResponse.fromEntity(savedProxy);
+        proxyPool.put(response);
+        return response;
     }
 
     @Override
@@ -113,7 +132,9 @@ public class FreeProxyService implements IFreeProxyService {
         proxy.setUpdatedAt(TimestampUtils.now());
 
         FreeProxy savedProxy = proxyRepository.save(proxy);
-        return ProxyResponse.fromEntity(savedProxy);
+        ProxyResponse response = ProxyResponse.fromEntity(savedProxy);
+        proxyPool.put(response);
+        return response;
     }
 
     @Override
@@ -122,6 +143,7 @@ public class FreeProxyService implements IFreeProxyService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Proxy not found");
         }
         proxyRepository.deleteById(id);
+        proxyPool.remove(id);
     }
 
     @Override
@@ -129,23 +151,9 @@ public class FreeProxyService implements IFreeProxyService {
         FreeProxy proxy = proxyRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Proxy not found"));
 
-        CheckResult result = checkProxy(proxy);
-
-        // Update proxy stats
-        if (result.isWorking()) {
-            proxy.setSuccessCount(proxy.getSuccessCount() + 1);
-        } else {
-            proxy.setFailCount(proxy.getFailCount() + 1);
-        }
-
-        int totalChecks = proxy.getSuccessCount() + proxy.getFailCount();
-        proxy.setUptime((double) proxy.getSuccessCount() / totalChecks * 100);
-        proxy.setResponseTimeMs(result.getResponseTimeMs());
-        proxy.setLastChecked(result.getCheckedAt());
-        proxy.setActive(result.isWorking());
-        proxy.setUpdatedAt(TimestampUtils.now());
-
-        proxyRepository.save(proxy);
+        CheckResult result = healthCheckEngine.check(proxy);
+        result.setNextCheckAt(recheckPolicy.nextCheckAt(proxy, result));
+        resultWriter.write(List.of(result));
         return result;
     }
 
@@ -156,6 +164,9 @@ public class FreeProxyService implements IFreeProxyService {
 
     @Override
     public List<ProxyResponse> getProxiesByProtocol(String protocol) {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getByProtocol(protocol);
+        }
         return proxyRepository.findByProtocol(protocol).stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -163,6 +174,9 @@ public class FreeProxyService implements IFreeProxyService {
 
     @Override
     public List<ProxyResponse> getProxiesByCountry(String country) {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getByCountry(country);
+        }
         return proxyRepository.findByCountry(country).stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -170,6 +184,9 @@ public class FreeProxyService implements IFreeProxyService {
 
     @Override
     public List<ProxyResponse> getFastProxies(int maxResponseTime) {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getFaster(maxResponseTime);
+        }
         return proxyRepository.findByResponseTimeLessThan(maxResponseTime).stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
@@ -177,108 +194,99 @@ public class FreeProxyService implements IFreeProxyService {
 
     @Override
     public List<ProxyResponse> getReliableProxies(double minUptime) {
+        if (proxyPool.isLoaded()) {
+            return proxyPool.getMoreReliable(minUptime);
+        }
         return proxyRepository.findByUptimeGreaterThan(minUptime).stream()
                 .map(ProxyResponse::fromEntity)
                 .collect(Collectors.toList());
     }
 
-    private CheckResult checkProxy(FreeProxy proxy) {
-        boolean isWorking;
-        int responseTime = 0;
-        Timestamp checkedAt = TimestampUtils.now();
-
+    /**
+     * Check the whole pool in parallel and update each proxy's stats, see {@link ProxyHealthCheckEngine#sweep}.
+     * Returns null when a sweep is already running.
+     */
+    public ProxySweepReport checkAllProxies() {
+        if (!sweepRunning.compareAndSet(false, true)) {
+            log.warn("Proxy sweep already running, skipping");
+            return null;
+        }
         try {
-            long startTime = System.currentTimeMillis();
-            Proxy javaProxy = configureProxy(proxy);
-            if (Objects.isNull(javaProxy)) {
-                return CheckResult.builder()
-                        .id(proxy.getId())
-                        .isWorking(false)
-                        .responseTimeMs(0)
-                        .checkedAt(checkedAt)
-                        .build();
-            }
-            HttpClient client = HttpClient.newBuilder()
-                    .proxy(ProxySelector.of((InetSocketAddress) javaProxy.address()))
-                    .connectTimeout(java.time.Duration.ofSeconds(10))
-                    .build();
-
-            // Create HTTP request to a test URL
-            HttpRequest httpRequest = HttpRequest.newBuilder()
-                    .uri(new URI("https://api.ipify.org"))
-                    .timeout(java.time.Duration.ofSeconds(10))
-                    .GET()
-                    .build();
-
-            // Send request and measure response
-            HttpResponse<String> httpResponse = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
-            int responseCode = httpResponse.statusCode();
-            long endTime = System.currentTimeMillis();
-
-            responseTime = (int) (endTime - startTime);
-            isWorking = (responseCode >= 200 && responseCode < 300);
-
-            return CheckResult.builder()
-                    .id(proxy.getId())
-                    .isWorking(isWorking)
-                    .responseTimeMs(responseTime)
-                    .checkedAt(checkedAt)
-                    .build();
-        } catch (Exception e) {
-            log.error("Error checking proxy: {}", e.getMessage());
-            isWorking = false;
+            log.info("Starting check of all proxies");
+            ProxySweepReport report = sweep(proxyRepository.findAll());
+            lastSweepReport = report;
+            log.info("Completed check of {} proxies in {} ms ({} checks/s): {} working, {} failed, "
+                            + "{} skipped, failures {}", report.getTotal(), report.getDurationMs(),
+                    String.format("%.1f", report.getChecksPerSecond()), report.getWorking(), report.getFailed(),
+                    report.getSkipped(), report.getFailureReasons());
+            return report;
+        } finally {
+            sweepRunning.set(false);
         }
-
-        return CheckResult.builder()
-                .id(proxy.getId())
-                .isWorking(isWorking)
-                .responseTimeMs(responseTime)
-                .checkedAt(checkedAt)
-                .build();
     }
 
-    @Scheduled(fixedRate = 3600000) // Check every hour
-    public void checkAllProxies() {
-        log.info("Starting scheduled check of all proxies");
-        List<FreeProxy> proxies = proxyRepository.findAll();
+    /**
+     * Check up to {@code limit} proxies whose next check time has passed, most overdue first.
+     * Returns null when a sweep is already running.
+     */
+    public ProxySweepReport checkDueProxies(int limit) {
+        if (!sweepRunning.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            return sweep(proxyRepository.findDueForCheck(TimestampUtils.now(), limit));
+        } finally {
+            sweepRunning.set(false);
+        }
+    }
 
-        for (FreeProxy proxy : proxies) {
+    /**
+     * One usable proxy from the in-memory pool, see {@link ProxyPool#next}
+     */
+    public ProxyResponse nextProxy(ProxyNextRequest request) {
+        ProxyPool.Strategy strategy = ProxyPool.Strategy.WEIGHTED;
+        if (StringUtils.isNotBlank(request.getStrategy())) {
             try {
-                CheckResult result = checkProxy(proxy);
-
-                // Update proxy stats
-                if (result.isWorking()) {
-                    proxy.setSuccessCount(proxy.getSuccessCount() + 1);
-                } else {
-                    proxy.setFailCount(proxy.getFailCount() + 1);
-                }
-
-                int totalChecks = proxy.getSuccessCount() + proxy.getFailCount();
-                proxy.setUptime((double) proxy.getSuccessCount() / totalChecks * 100);
-                proxy.setResponseTimeMs(result.getResponseTimeMs());
-                proxy.setLastChecked(result.getCheckedAt());
-                proxy.setActive(result.isWorking());
-                proxy.setUpdatedAt(TimestampUtils.now());
-
-                proxyRepository.save(proxy);
-                log.info("Checked proxy {}: {}", proxy.getId(), result.isWorking() ? "working" : "not working");
-            } catch (Exception e) {
-                log.error("Error during scheduled check of proxy {}: {}", proxy.getId(), e.getMessage());
+                strategy = ProxyPool.Strategy.valueOf(request.getStrategy().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Unknown strategy " + request.getStrategy());
             }
         }
+        if (!proxyPool.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Proxy pool is not loaded");
+        }
+        return proxyPool.next(request.getProtocol(), request.getCountry(), strategy, request.getKey())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No active proxy found"));
+    }
 
-        log.info("Completed scheduled check of all proxies");
+    public ProxySweepReport getLastSweepReport() {
+        return lastSweepReport;
     }
 
-    private Proxy configureProxy(FreeProxy request) throws IllegalArgumentException {
-        InetSocketAddress address = new InetSocketAddress(request.getIpAddress(), request.getPort());
-        String protocol = request.getProtocol().toUpperCase();
+    private ProxySweepReport sweep(List<FreeProxy> proxies) {
+        try {
+            return healthCheckEngine.sweep(proxies, (proxy, result) -> {
+                result.setNextCheckAt(recheckPolicy.nextCheckAt(proxy, result));
+                resultWriter.add(result);
+            });
+        } finally {
+            resultWriter.flush();
+        }
+    }
 
-        return switch (protocol) {
-            case "HTTP", "HTTPS" -> new Proxy(Proxy.Type.HTTP, address);
-            case "SOCKS4", "SOCKS5" -> new Proxy(Proxy.Type.SOCKS, address);
-            default -> null;
-        };
+    @Scheduled(fixedDelayString = "${proxy.health-check.interval-minutes:60}",
+            initialDelayString = "${proxy.health-check.interval-minutes:60}", timeUnit = TimeUnit.MINUTES)
+    public void checkAllProxiesSafely() {
+        // The adaptive re-check scheduler replaces the hourly full sweep
+        if (!healthCheckProperties.isEnabled() || recheckProperties.isEnabled()) {
+            return;
+        }
+        try {
+            checkAllProxies();
+        } catch (Exception e) {
+            // Keep the schedule alive, the next sweep retries
+            log.error("Proxy sweep failed", e);
+        }
     }
 
 //    public FreeProxyDto.ImportResult importProxiesFromFile(MultipartFile file, String fileType, String username) {
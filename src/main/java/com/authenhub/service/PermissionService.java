@@ -6,6 +6,7 @@ import com.authenhub.entity.Permission;
 import com.authenhub.exception.ResourceAlreadyExistsException;
 import com.authenhub.exception.ResourceNotFoundException;
 import com.authenhub.repository.jpa.PermissionJpaRepository;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.service.interfaces.IPermissionService;
 import com.authenhub.utils.TimestampUtils;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PermissionService implements IPermissionService {
 
+    private final AuthorizationCache authorizationCache;
     private final PermissionJpaRepository permissionRepository;
 
     @Override
@@ -79,6 +81,8 @@ public class PermissionService implements IPermissionService {
         permission.setUpdatedAt(TimestampUtils.now());
 
         Permission updatedPermission = permissionRepository.save(permission);
+        // Role permissions reference permissions by name, so any cached role may be affected
+        authorizationCache.invalidateAll();
         return PermissionResponse.fromEntity(updatedPermission);
     }
 
@@ -88,5 +92,6 @@ public class PermissionService implements IPermissionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Permission not found with id: " + id));
 
         permissionRepository.delete(permission);
+        authorizationCache.invalidateAll();
     }
 }
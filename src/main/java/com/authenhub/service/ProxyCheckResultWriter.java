@@ -0,0 +1,177 @@
+package com.authenhub.service;
+
+import com.authenhub.bean.proxy.CheckResult;
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.application.ProxyHealthCheckProperties;
+import com.authenhub.entity.mongo.FreeProxy;
+import com.authenhub.utils.TimestampUtils;
+import com.mongodb.client.model.Filters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies proxy check results to {@code free_proxies} in bulk.
+ * <p>
+ * Success/fail counters are incremented by the database ({@code $inc} / {@code count = count + ?}) and the uptime
+ * is derived from the stored counters in the same flush, so concurrent checks of one proxy never lose an update.
+ * Success/failure streaks are maintained the same way.
+ * Sweep workers {@link #add} results, a batch is written every {@code write-batch-size} results and on
+ * {@link #flush()}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProxyCheckResultWriter {
+
+    private static final String COLLECTION = "free_proxies";
+    private static final String UPDATE_SQL = ""
+            + "UPDATE free_proxies SET "
+            + "success_count = COALESCE(success_count, 0) + ?, "
+            + "fail_count = COALESCE(fail_count, 0) + ?, "
+            + "uptime = (COALESCE(success_count, 0) + ?) * 100.0 "
+            + "/ GREATEST(COALESCE(success_count, 0) + COALESCE(fail_count, 0) + 1, 1), "
+            + "consecutive_successes = CASE WHEN ? THEN consecutive_successes + 1 ELSE 0 END, "
+            + "consecutive_failures = CASE WHEN ? THEN 0 ELSE consecutive_failures + 1 END, "
+            + "next_check_at = COALESCE(?, next_check_at), "
+            + "response_time_ms = ?, last_checked = ?, is_active = ?, updated_at = ? "
+            + "WHERE id = ?";
+
+    private final MongoTemplate mongoTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSwitcherConfig databaseConfig;
+    private final ProxyHealthCheckProperties properties;
+    private final ProxyPool proxyPool;
+
+    private final Queue<CheckResult> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * Buffer one result, writes a batch once enough results are pending
+     */
+    public void add(CheckResult result) {
+        pending.add(result);
+        if (pendingCount.incrementAndGet() >= properties.getWriteBatchSize()) {
+            flush();
+        }
+    }
+
+    /**
+     * Write everything buffered so far
+     */
+    public synchronized void flush() {
+        List<CheckResult> batch = new ArrayList<>();
+        CheckResult result;
+        while ((result = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(result);
+            if (batch.size() >= properties.getWriteBatchSize()) {
+                writeSafely(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        writeSafely(batch);
+    }
+
+    /**
+     * Apply results right away, without buffering
+     */
+    public void write(List<CheckResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        if (databaseConfig.isMongoActive()) {
+            writeMongo(results);
+        } else {
+            writePostgres(results);
+        }
+        proxyPool.apply(results);
+    }
+
+    private void writeSafely(List<CheckResult> batch) {
+        try {
+            write(batch);
+        } catch (Exception e) {
+            // One failed batch only loses that batch of stats, the next check fixes last_checked/is_active
+            log.error("Could not save {} proxy check results", batch.size(), e);
+        }
+    }
+
+    private void writeMongo(List<CheckResult> results) {
+        Timestamp now = TimestampUtils.now();
+        List<Object> ids = new ArrayList<>(results.size());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FreeProxy.class);
+        for (CheckResult result : results) {
+            Update update = new Update()
+                    .inc("successCount", result.isWorking() ? 1 : 0)
+                    .inc("failCount", result.isWorking() ? 0 : 1)
+                    .set("responseTimeMs", result.getResponseTimeMs())
+                    .set("lastChecked", result.getCheckedAt())
+                    .set("isActive", result.isWorking())
+                    .set("updatedAt", now);
+            // Streaks feed the re-check scheduler's backoff
+            if (result.isWorking()) {
+                update.inc("consecutiveSuccesses", 1).set("consecutiveFailures", 0);
+            } else {
+                update.inc("consecutiveFailures", 1).set("consecutiveSuccesses", 0);
+            }
+            if (result.getNextCheckAt() != null) {
+                update.set("nextCheckAt", result.getNextCheckAt());
+            }
+            bulk.updateOne(Query.query(Criteria.where("id").is(result.getId())), update);
+            ids.add(ObjectId.isValid(result.getId()) ? new ObjectId(result.getId()) : result.getId());
+        }
+        bulk.execute();
+
+        // uptime from the counters as stored now, as a pipeline update so it reads the incremented values
+        Document total = new Document("$add", List.of(
+                new Document("$ifNull", List.of("$success_count", 0)),
+                new Document("$ifNull", List.of("$fail_count", 0))));
+        Document uptime = new Document("$multiply", List.of(100, new Document("$divide", List.of(
+                new Document("$ifNull", List.of("$success_count", 0)),
+                new Document("$max", List.of(total, 1))))));
+        mongoTemplate.getCollection(COLLECTION).updateMany(Filters.in("_id", ids),
+                List.of(new Document("$set", new Document("uptime", uptime))));
+    }
+
+    private void writePostgres(List<CheckResult> results) {
+        Timestamp now = TimestampUtils.now();
+        List<CheckResult> valid = new ArrayList<>(results.size());
+        for (CheckResult result : results) {
+            if (result.getId() != null && result.getId().matches("\\d{1,19}")) {
+                valid.add(result);
+            } else {
+                log.warn("Invalid ID format for PostgreSQL: {}", result.getId());
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_SQL, valid, valid.size(), (ps, result) -> {
+            int success = result.isWorking() ? 1 : 0;
+            ps.setInt(1, success);
+            ps.setInt(2, 1 - success);
+            ps.setInt(3, success);
+            ps.setBoolean(4, result.isWorking());
+            ps.setBoolean(5, result.isWorking());
+            ps.setTimestamp(6, result.getNextCheckAt());
+            ps.setLong(7, result.getResponseTimeMs());
+            ps.setTimestamp(8, result.getCheckedAt());
+            ps.setBoolean(9, result.isWorking());
+            ps.setTimestamp(10, now);
+            ps.setLong(11, Long.parseLong(result.getId()));
+        });
+    }
+}
@@ -0,0 +1,212 @@
+package com.authenhub.service;
+
+import com.authenhub.config.application.ProxyHealthCheckProperties;
+import com.authenhub.constant.enums.ProxyCheckFailure;
+import com.authenhub.entity.mongo.FreeProxy;
+import com.authenhub.exception.ProxyCheckException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Blocking socket transport for proxy checks.
+ * <p>
+ * A {@code java.net.http.HttpClient} is bound to one proxy, so checking through thousands of proxies meant
+ * thousands of clients, each with its own selector thread, connection pool and TLS context. Here every check runs
+ * on the calling worker thread over a plain socket: HTTP proxies get a {@code CONNECT} tunnel, SOCKS proxies go
+ * through the JDK SOCKS implementation, and TLS to the test URL is layered on top with one shared
+ * {@link SSLContext}, whose session cache lets repeated handshakes resume.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProxyCheckTransport {
+
+    private static final int MAX_LINE_LENGTH = 8192;
+    private static final byte SOCKS5_VERSION = 5;
+    private static final byte SOCKS5_NO_AUTH = 0;
+
+    private final ProxyHealthCheckProperties properties;
+
+    private SSLSocketFactory sslSocketFactory;
+
+    @PostConstruct
+    public void init() throws NoSuchAlgorithmException {
+        sslSocketFactory = SSLContext.getDefault().getSocketFactory();
+    }
+
+    /**
+     * Cheap liveness test: TCP connect to the proxy, plus the method negotiation for SOCKS5.
+     * Most dead proxies fail here within {@code precheck-timeout-ms} instead of the full probe timeouts.
+     */
+    public void precheck(FreeProxy proxy) throws IOException {
+        String protocol = protocolOf(proxy);
+        int timeout = (int) properties.getPrecheckTimeoutMs();
+        try (Socket socket = new Socket()) {
+            connect(socket, proxyAddress(proxy), timeout);
+            if (!"SOCKS5".equals(protocol)) {
+                return;
+            }
+            socket.setSoTimeout(timeout);
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[]{SOCKS5_VERSION, 1, SOCKS5_NO_AUTH});
+            out.flush();
+            byte[] reply = socket.getInputStream().readNBytes(2);
+            if (reply.length != 2 || reply[0] != SOCKS5_VERSION || reply[1] != SOCKS5_NO_AUTH) {
+                throw new ProxyCheckException(ProxyCheckFailure.BAD_HANDSHAKE, "SOCKS5 greeting rejected");
+            }
+        } catch (SocketTimeoutException e) {
+            // A connect timeout is already reported as such, this one is the greeting reply
+            throw new ProxyCheckException(ProxyCheckFailure.REQUEST_TIMEOUT, "SOCKS5 greeting timed out", e);
+        }
+    }
+
+    /**
+     * GET {@code target} through the proxy and return the HTTP status code
+     */
+    public int probe(FreeProxy proxy, URI target) throws IOException {
+        String protocol = protocolOf(proxy);
+        boolean https = "https".equalsIgnoreCase(target.getScheme());
+        String host = target.getHost();
+        int port = target.getPort() > 0 ? target.getPort() : (https ? 443 : 80);
+        int connectTimeout = (int) properties.getConnectTimeoutMs();
+
+        boolean httpProxy = "HTTP".equals(protocol) || "HTTPS".equals(protocol);
+        boolean absoluteForm = false;
+        Socket socket = httpProxy ? new Socket() : new Socket(new Proxy(Proxy.Type.SOCKS, proxyAddress(proxy)));
+        try {
+            socket.setSoTimeout((int) properties.getRequestTimeoutMs());
+            if (httpProxy) {
+                connect(socket, proxyAddress(proxy), connectTimeout);
+                if (https) {
+                    tunnel(socket, host, port);
+                } else {
+                    // Plain HTTP goes to the proxy as an absolute-form request
+                    absoluteForm = true;
+                }
+            } else {
+                // SOCKS4 cannot carry host names, resolve them here
+                InetSocketAddress targetAddress = "SOCKS4".equals(protocol)
+                        ? new InetSocketAddress(host, port)
+                        : InetSocketAddress.createUnresolved(host, port);
+                connect(socket, targetAddress, connectTimeout);
+            }
+            if (https) {
+                socket = startTls(socket, host, port);
+            }
+
+            String path = target.getRawPath() == null || target.getRawPath().isEmpty() ? "/" : target.getRawPath();
+            if (target.getRawQuery() != null) {
+                path += "?" + target.getRawQuery();
+            }
+            String hostHeader = target.getPort() > 0 ? host + ":" + port : host;
+            write(socket, "GET " + (absoluteForm ? target.toString() : path) + " HTTP/1.1\r\n"
+                    + "Host: " + hostHeader + "\r\n"
+                    + "User-Agent: AuthenHub-ProxyCheck\r\n"
+                    + "Accept: */*\r\n"
+                    + "Connection: close\r\n\r\n");
+            return readStatus(socket.getInputStream(), ProxyCheckFailure.BAD_STATUS);
+        } finally {
+            // Closing the TLS socket also closes the tunnel underneath
+            socket.close();
+        }
+    }
+
+    private void tunnel(Socket socket, String host, int port) throws IOException {
+        String authority = host + ":" + port;
+        write(socket, "CONNECT " + authority + " HTTP/1.1\r\nHost: " + authority + "\r\n\r\n");
+        InputStream in = socket.getInputStream();
+        int status = readStatus(in, ProxyCheckFailure.BAD_HANDSHAKE);
+        if (status != 200) {
+            throw new ProxyCheckException(ProxyCheckFailure.BAD_HANDSHAKE, "CONNECT answered " + status);
+        }
+        // Headers end with an empty line, nothing else is sent before the TLS handshake
+        while (!readLine(in).isEmpty()) {
+            // skip
+        }
+    }
+
+    private Socket startTls(Socket socket, String host, int port) throws IOException {
+        SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, host, port, true);
+        SSLParameters parameters = sslSocket.getSSLParameters();
+        parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        sslSocket.setSSLParameters(parameters);
+        sslSocket.startHandshake();
+        return sslSocket;
+    }
+
+    private void connect(Socket socket, InetSocketAddress address, int timeout) throws IOException {
+        try {
+            socket.connect(address, timeout);
+        } catch (SocketTimeoutException e) {
+            throw new ProxyCheckException(ProxyCheckFailure.CONNECT_TIMEOUT, "Connect timed out", e);
+        }
+    }
+
+    private void write(Socket socket, String request) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private int readStatus(InputStream in, ProxyCheckFailure malformed) throws IOException {
+        // HTTP/1.1 200 OK
+        String[] statusLine = readLine(in).split(" ", 3);
+        if (statusLine.length < 2 || !statusLine[0].startsWith("HTTP/")) {
+            throw new ProxyCheckException(malformed, "Not an HTTP response");
+        }
+        try {
+            return Integer.parseInt(statusLine[1]);
+        } catch (NumberFormatException e) {
+            throw new ProxyCheckException(malformed, "Invalid status code " + statusLine[1]);
+        }
+    }
+
+    /**
+     * Byte by byte, a buffered reader could swallow the start of the TLS handshake after a CONNECT reply
+     */
+    private String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (b != '\r') {
+                line.write(b);
+            }
+            if (line.size() > MAX_LINE_LENGTH) {
+                throw new ProxyCheckException(ProxyCheckFailure.BAD_HANDSHAKE, "Response line too long");
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            throw new ProxyCheckException(ProxyCheckFailure.IO_ERROR, "Connection closed by proxy");
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private InetSocketAddress proxyAddress(FreeProxy proxy) {
+        return new InetSocketAddress(proxy.getIpAddress(), proxy.getPort());
+    }
+
+    private String protocolOf(FreeProxy proxy) throws ProxyCheckException {
+        String protocol = proxy.getProtocol() == null ? "" : proxy.getProtocol().toUpperCase();
+        return switch (protocol) {
+            case "HTTP", "HTTPS", "SOCKS4", "SOCKS5" -> protocol;
+            default -> throw new ProxyCheckException(ProxyCheckFailure.UNSUPPORTED_PROTOCOL,
+                    "Unsupported proxy protocol " + proxy.getProtocol());
+        };
+    }
+}
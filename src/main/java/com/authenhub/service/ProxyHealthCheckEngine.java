@@ -0,0 +1,203 @@
+package com.authenhub.service;
+
+import com.authenhub.bean.proxy.CheckResult;
+import com.authenhub.bean.proxy.ProxySweepReport;
+import com.authenhub.config.application.ProxyHealthCheckProperties;
+import com.authenhub.constant.enums.ProxyCheckFailure;
+import com.authenhub.entity.mongo.FreeProxy;
+import com.authenhub.utils.TimestampUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs proxy checks, one at a time for API calls or as a parallel sweep over the whole pool.
+ * <p>
+ * Checks block on network I/O, so a sweep runs on a bounded pool of {@code concurrency} threads; idle threads
+ * time out between sweeps. A per-IP semaphore keeps a sweep from hammering one host, and everything still queued
+ * when the deadline passes is cancelled. Each check is a quick TCP/SOCKS pre-check followed by a GET of the test
+ * URL through {@link ProxyCheckTransport}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProxyHealthCheckEngine {
+
+    private final ProxyHealthCheckProperties properties;
+    private final ProxyCheckTransport transport;
+
+    private URI testUri;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        testUri = URI.create(properties.getTestUrl());
+        AtomicInteger threadCount = new AtomicInteger();
+        int concurrency = Math.max(1, properties.getConcurrency());
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ProxyCheck-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check every proxy, {@code onResult} is called from the worker threads for each finished check.
+     * Returns once all checks are done or the sweep deadline passed.
+     */
+    public ProxySweepReport sweep(List<FreeProxy> proxies, BiConsumer<FreeProxy, CheckResult> onResult) {
+        Timestamp startedAt = TimestampUtils.now();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(properties.getSweepDeadlineSeconds());
+
+        // Spread proxies of one host over the sweep instead of queueing them back to back
+        List<FreeProxy> order = new ArrayList<>(proxies);
+        Collections.shuffle(order);
+
+        Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+        Map<ProxyCheckFailure, LongAdder> failures = new ConcurrentHashMap<>();
+        LongAdder working = new LongAdder();
+        LongAdder failed = new LongAdder();
+        CountDownLatch done = new CountDownLatch(order.size());
+        List<Future<?>> futures = new ArrayList<>(order.size());
+
+        for (FreeProxy proxy : order) {
+            futures.add(executor.submit(() -> {
+                try {
+                    CheckResult result = checkWithinDeadline(proxy, deadline, hostPermits);
+                    if (result == null) {
+                        return;
+                    }
+                    if (result.isWorking()) {
+                        working.increment();
+                    } else {
+                        failed.increment();
+                        failures.computeIfAbsent(ProxyCheckFailure.valueOf(result.getFailureReason()),
+                                reason -> new LongAdder()).increment();
+                    }
+                    onResult.accept(proxy, result);
+                } catch (InterruptedException e) {
+                    // Cancelled at the deadline while waiting for a host permit
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("Error during scheduled check of proxy {}: {}", proxy.getId(), e.getMessage());
+                } finally {
+                    done.countDown();
+                }
+            }));
+        }
+
+        try {
+            if (!done.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                log.warn("Proxy sweep deadline of {}s reached, cancelling {} remaining checks",
+                        properties.getSweepDeadlineSeconds(), done.getCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long checked = working.sum() + failed.sum();
+        Map<String, Long> failureReasons = new TreeMap<>();
+        failures.forEach((reason, count) -> failureReasons.put(reason.name(), count.sum()));
+        return ProxySweepReport.builder()
+                .startedAt(startedAt)
+                .durationMs(durationMs)
+                .total(order.size())
+                .checked(checked)
+                .working(working.sum())
+                .failed(failed.sum())
+                .skipped(order.size() - checked)
+                .checksPerSecond(durationMs > 0 ? checked * 1000.0 / durationMs : checked)
+                .failureReasons(failureReasons)
+                .build();
+    }
+
+    /**
+     * Null when the deadline passed before the check could start, or interrupted it
+     */
+    private CheckResult checkWithinDeadline(FreeProxy proxy, long deadline, Map<String, Semaphore> hostPermits)
+            throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return null;
+        }
+        Semaphore permit = hostPermits.computeIfAbsent(String.valueOf(proxy.getIpAddress()),
+                host -> new Semaphore(Math.max(1, properties.getPerHostConcurrency())));
+        if (!permit.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+            return null;
+        }
+        try {
+            CheckResult result = check(proxy);
+            // Socket I/O ignores interrupts, a check cancelled at the deadline still ran to its timeouts
+            return Thread.currentThread().isInterrupted() ? null : result;
+        } finally {
+            permit.release();
+        }
+    }
+
+    public CheckResult check(FreeProxy proxy) {
+        Timestamp checkedAt = TimestampUtils.now();
+        long startTime = System.currentTimeMillis();
+        try {
+            if (properties.isPrecheckEnabled()) {
+                transport.precheck(proxy);
+            }
+            int responseCode = transport.probe(proxy, testUri);
+            int responseTime = (int) (System.currentTimeMillis() - startTime);
+            if (responseCode < 200 || responseCode >= 300) {
+                return failure(proxy, checkedAt, responseTime, ProxyCheckFailure.BAD_STATUS);
+            }
+            return CheckResult.builder()
+                    .id(proxy.getId())
+                    .isWorking(true)
+                    .responseTimeMs(responseTime)
+                    .checkedAt(checkedAt)
+                    .build();
+        } catch (Exception e) {
+            ProxyCheckFailure reason = ProxyCheckFailure.of(e);
+            log.debug("Proxy {}:{} check failed ({}): {}", proxy.getIpAddress(), proxy.getPort(), reason,
+                    e.getMessage());
+            return failure(proxy, checkedAt, 0, reason);
+        }
+    }
+
+    private CheckResult failure(FreeProxy proxy, Timestamp checkedAt, int responseTime, ProxyCheckFailure reason) {
+        return CheckResult.builder()
+                .id(proxy.getId())
+                .isWorking(false)
+                .responseTimeMs(responseTime)
+                .checkedAt(checkedAt)
+                .failureReason(reason.name())
+                .build();
+    }
+}
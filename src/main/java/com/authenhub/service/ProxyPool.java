@@ -0,0 +1,411 @@
+package com.authenhub.service;
+
+import com.authenhub.bean.proxy.CheckResult;
+import com.authenhub.bean.proxy.ProxyResponse;
+import com.authenhub.repository.adapter.FreeProxyRepositoryAdapter;
+import com.google.common.hash.Hashing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of {@code free_proxies} for the read endpoints and proxy selection.
+ * <p>
+ * Readers work on an immutable {@link Snapshot} with lists per protocol and country and arrays sorted by latency and
+ * uptime, so "fast" and "reliable" lookups are a binary search and a sublist view. CRUD changes replace the snapshot
+ * (copy on write) right away; check results are queued and published together once per {@code publish-interval-ms},
+ * so a sweep does not rebuild the snapshot per batch. A full reload every {@code reload-interval-seconds} picks up
+ * changes made by other nodes, and changes applied while it reads the database are replayed on top of what it read.
+ * Until the first load finishes {@link #isLoaded()} is false and callers query the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProxyPool {
+
+    public enum Strategy {
+        // Random, weighted by uptime and latency
+        WEIGHTED,
+        ROUND_ROBIN,
+        // Same key -> same proxy (rendezvous hashing on proxy ids): removing a proxy only moves its own keys,
+        // adding one only takes the keys it now wins
+        STICKY
+    }
+
+    private static final String ANY = "*";
+
+    private final FreeProxyRepositoryAdapter proxyRepository;
+
+    @Value("${proxy.pool.enabled:true}")
+    private boolean enabled;
+
+
+    private final Object writeLock = new Object();
+    private final Object reloadLock = new Object();
+    private final Map<String, AtomicLong> roundRobinCounters = new ConcurrentHashMap<>();
+    private final Queue<CheckResult> pendingResults = new ConcurrentLinkedQueue<>();
+    // Changes made while a reload reads the database, guarded by writeLock, null when no reload is running
+    private List<Consumer<Map<String, ProxyResponse>>> reloadJournal;
+    private volatile Snapshot snapshot;
+    private volatile Timestamp loadedAt;
+
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    public List<ProxyResponse> getAll() {
+        return snapshot.all;
+    }
+
+    public List<ProxyResponse> getActive() {
+        return snapshot.active;
+    }
+
+    public List<ProxyResponse> getByProtocol(String protocol) {
+        return snapshot.byProtocol.getOrDefault(normalize(protocol), Collections.emptyList());
+    }
+
+    public List<ProxyResponse> getByCountry(String country) {
+        return snapshot.byCountry.getOrDefault(normalize(country), Collections.emptyList());
+    }
+
+    /**
+     * Proxies answering faster than {@code maxResponseTime} ms, fastest first
+     */
+    public List<ProxyResponse> getFaster(long maxResponseTime) {
+        Snapshot current = snapshot;
+        int end = lowerBound(current.latencies, maxResponseTime);
+        return Collections.unmodifiableList(Arrays.asList(current.byLatency).subList(0, end));
+    }
+
+    /**
+     * Proxies with uptime above {@code minUptime} percent, most reliable first
+     */
+    public List<ProxyResponse> getMoreReliable(double minUptime) {
+        Snapshot current = snapshot;
+        // uptimes are negated so the array is ascending
+        int end = lowerBound(current.negatedUptimes, -minUptime);
+        return Collections.unmodifiableList(Arrays.asList(current.byUptime).subList(0, end));
+    }
+
+    /**
+     * Pick one active proxy, optionally restricted to a protocol and/or country
+     *
+     * @param key only used by {@link Strategy#STICKY}, without a key it falls back to weighted selection
+     */
+    public Optional<ProxyResponse> next(String protocol, String country, Strategy strategy, String key) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        String candidatesKey = normalize(protocol) + "|" + normalize(country);
+        Candidates candidates = current.candidates.computeIfAbsent(candidatesKey,
+                k -> current.candidates(normalize(protocol), normalize(country)));
+        int size = candidates.proxies.length;
+        if (size == 0) {
+            return Optional.empty();
+        }
+        int index;
+        if (strategy == Strategy.ROUND_ROBIN) {
+            long ticket = roundRobinCounters.computeIfAbsent(candidatesKey, k -> new AtomicLong()).getAndIncrement();
+            index = (int) Math.floorMod(ticket, (long) size);
+        } else if (strategy == Strategy.STICKY && StringUtils.isNotBlank(key)) {
+            index = rendezvous(candidates.idHashes, hash(key));
+        } else {
+            double[] cumulative = candidates.cumulativeWeights;
+            double point = ThreadLocalRandom.current().nextDouble() * cumulative[size - 1];
+            int found = Arrays.binarySearch(cumulative, point);
+            index = Math.min(found >= 0 ? found + 1 : -found - 1, size - 1);
+        }
+        return Optional.of(candidates.proxies[index]);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Snapshot current = snapshot;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", current != null);
+        stats.put("loadedAt", loadedAt);
+        stats.put("size", current != null ? current.all.size() : 0);
+        stats.put("active", current != null ? current.active.size() : 0);
+        return stats;
+    }
+
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (writeLock) {
+                reloadJournal = new ArrayList<>();
+            }
+            List<ProxyResponse> proxies;
+            try {
+                proxies = proxyRepository.findAll().stream()
+                        .map(ProxyResponse::fromEntity)
+                        .collect(Collectors.toList());
+            } catch (RuntimeException e) {
+                synchronized (writeLock) {
+                    reloadJournal = null;
+                }
+                throw e;
+            }
+            synchronized (writeLock) {
+                Map<String, ProxyResponse> byId = new TreeMap<>();
+                proxies.forEach(proxy -> byId.put(proxy.getId(), proxy));
+                // The read may or may not include these, replaying them is idempotent
+                reloadJournal.forEach(change -> change.accept(byId));
+                reloadJournal = null;
+                snapshot = new Snapshot(byId.values());
+                loadedAt = new Timestamp(System.currentTimeMillis());
+            }
+            log.debug("Proxy pool loaded {} proxies", proxies.size());
+        }
+    }
+
+    public void put(ProxyResponse proxy) {
+        update(proxies -> proxies.put(proxy.getId(), proxy));
+    }
+
+    public void remove(String id) {
+        update(proxies -> proxies.remove(id));
+    }
+
+    /**
+     * Mirror check results already written by {@link ProxyCheckResultWriter}, visible after the next publish
+     */
+    public void apply(List<CheckResult> results) {
+        pendingResults.addAll(results);
+    }
+
+    /**
+     * Fold the queued check results into one new snapshot
+     */
+    @Scheduled(fixedDelayString = "${proxy.pool.publish-interval-ms:1000}", timeUnit = TimeUnit.MILLISECONDS)
+    public void publishResults() {
+        List<CheckResult> results = new ArrayList<>();
+        CheckResult result;
+        while ((result = pendingResults.poll()) != null) {
+            results.add(result);
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+        try {
+            update(proxies -> {
+                for (CheckResult checkResult : results) {
+                    applyResult(proxies, checkResult);
+                }
+            });
+        } catch (Exception e) {
+            // The next reload brings the pool back in line with the database
+            log.error("Could not publish {} proxy check results", results.size(), e);
+        }
+    }
+
+    private static void applyResult(Map<String, ProxyResponse> proxies, CheckResult result) {
+        ProxyResponse current = proxies.get(result.getId());
+        if (current == null) {
+            return;
+        }
+        // Already reflected, e.g. read by a reload after the result was written, or an older result
+        if (current.getLastChecked() != null && result.getCheckedAt() != null
+                && !current.getLastChecked().before(result.getCheckedAt())) {
+            return;
+        }
+        int successCount = current.getSuccessCount() + (result.isWorking() ? 1 : 0);
+        int failCount = current.getFailCount() + (result.isWorking() ? 0 : 1);
+        proxies.put(current.getId(), current.toBuilder()
+                .successCount(successCount)
+                .failCount(failCount)
+                .uptime((double) successCount / (successCount + failCount) * 100)
+                .responseTimeMs(result.getResponseTimeMs())
+                .lastChecked(result.getCheckedAt())
+                .isActive(result.isWorking())
+                .build());
+    }
+
+    private void update(Consumer<Map<String, ProxyResponse>> change) {
+        synchronized (writeLock) {
+            if (reloadJournal != null) {
+                reloadJournal.add(change);
+            }
+            Snapshot current = snapshot;
+            if (current == null) {
+                // The first load is still reading, it replays the change from the journal
+                return;
+            }
+            Map<String, ProxyResponse> proxies = new TreeMap<>(current.byId);
+            change.accept(proxies);
+            snapshot = new Snapshot(proxies.values());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${proxy.pool.reload-interval-seconds:300}", timeUnit = TimeUnit.SECONDS)
+    public void reloadSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            // Keep serving the previous snapshot, the next reload retries
+            log.error("Could not load the proxy pool", e);
+        }
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.isBlank(value) ? ANY : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * First index whose value is >= {@code value}
+     */
+    private static int lowerBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(double[] values, double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long hash(String value) {
+        return Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    /**
+     * Highest random weight: the candidate whose id scores highest for the key. The score of a key only depends on
+     * the proxy id, never on its position among the candidates
+     */
+    private static int rendezvous(long[] idHashes, long keyHash) {
+        int best = 0;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < idHashes.length; i++) {
+            long score = mix(keyHash ^ idHashes[i]);
+            if (score > bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    // SplitMix64 finalizer, spreads the combined hashes so each (key, id) pair gets an independent score
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double weight(ProxyResponse proxy) {
+        // A 100% proxy answering in 1s weighs as much as a 50% one answering instantly
+        return Math.max(proxy.getUptime(), 1.0) / (1.0 + proxy.getResponseTimeMs() / 1000.0);
+    }
+
+    private record Candidates(ProxyResponse[] proxies, double[] cumulativeWeights, long[] idHashes) {
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, ProxyResponse> byId;
+        private final List<ProxyResponse> all;
+        private final List<ProxyResponse> active;
+        private final Map<String, List<ProxyResponse>> byProtocol;
+        private final Map<String, List<ProxyResponse>> byCountry;
+        private final ProxyResponse[] byLatency;
+        private final long[] latencies;
+        private final ProxyResponse[] byUptime;
+        private final double[] negatedUptimes;
+        // Selection candidates per "protocol|country", built on first use
+        private final Map<String, Candidates> candidates = new ConcurrentHashMap<>();
+
+        private Snapshot(Collection<ProxyResponse> proxies) {
+            Map<String, ProxyResponse> ids = new TreeMap<>();
+            proxies.forEach(proxy -> ids.put(proxy.getId(), proxy));
+            byId = Collections.unmodifiableMap(ids);
+            all = List.copyOf(ids.values());
+            active = all.stream().filter(ProxyResponse::isActive).toList();
+            byProtocol = index(all, ProxyResponse::getProtocol);
+            byCountry = index(all, ProxyResponse::getCountry);
+
+            byLatency = all.toArray(new ProxyResponse[0]);
+            Arrays.sort(byLatency, Comparator.comparingLong(ProxyResponse::getResponseTimeMs));
+            latencies = Arrays.stream(byLatency).mapToLong(ProxyResponse::getResponseTimeMs).toArray();
+
+            byUptime = all.toArray(new ProxyResponse[0]);
+            Arrays.sort(byUptime, Comparator.comparingDouble(ProxyResponse::getUptime).reversed());
+            negatedUptimes = Arrays.stream(byUptime).mapToDouble(proxy -> -proxy.getUptime()).toArray();
+        }
+
+        private static Map<String, List<ProxyResponse>> index(List<ProxyResponse> proxies,
+                                                               Function<ProxyResponse, String> key) {
+            Map<String, List<ProxyResponse>> index = new HashMap<>();
+            for (ProxyResponse proxy : proxies) {
+                if (StringUtils.isNotBlank(key.apply(proxy))) {
+                    index.computeIfAbsent(normalize(key.apply(proxy)), k -> new ArrayList<>()).add(proxy);
+                }
+            }
+            index.replaceAll((k, list) -> List.copyOf(list));
+            return index;
+        }
+
+        private Candidates candidates(String protocol, String country) {
+            List<ProxyResponse> selected = active.stream()
+                    .filter(proxy -> ANY.equals(protocol) || protocol.equals(normalize(proxy.getProtocol())))
+                    .filter(proxy -> ANY.equals(country) || country.equals(normalize(proxy.getCountry())))
+                    .toList();
+            double[] cumulative = new double[selected.size()];
+            long[] idHashes = new long[selected.size()];
+            double total = 0;
+            for (int i = 0; i < selected.size(); i++) {
+                total += weight(selected.get(i));
+                cumulative[i] = total;
+                idHashes[i] = hash(selected.get(i).getId());
+            }
+            return new Candidates(selected.toArray(new ProxyResponse[0]), cumulative, idHashes);
+        }
+    }
+}
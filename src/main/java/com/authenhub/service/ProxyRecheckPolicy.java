@@ -0,0 +1,43 @@
+package com.authenhub.service;
+
+import com.authenhub.bean.proxy.CheckResult;
+import com.authenhub.config.application.ProxyRecheckProperties;
+import com.authenhub.entity.mongo.FreeProxy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When a proxy should be checked again, from its streak before this check and the check result.
+ * See {@link ProxyRecheckProperties} for the tiers.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProxyRecheckPolicy {
+
+    private final ProxyRecheckProperties properties;
+
+    public Timestamp nextCheckAt(FreeProxy proxy, CheckResult result) {
+        long minutes;
+        if (result.isWorking()) {
+            int streak = proxy.getConsecutiveSuccesses() + 1;
+            minutes = streak < properties.getConfirmStreak()
+                    ? properties.getConfirmIntervalMinutes()
+                    : properties.getHealthyIntervalMinutes();
+            if (result.getResponseTimeMs() > properties.getSlowLatencyMs()) {
+                minutes *= 2;
+            }
+        } else {
+            // 5, 10, 20, ... minutes: a proxy dead for days costs a handful of checks per week
+            int streak = proxy.getConsecutiveFailures() + 1;
+            int doublings = Math.min(streak - 1, 30);
+            minutes = Math.min(properties.getFailureBaseMinutes() << doublings, properties.getMaxBackoffMinutes());
+        }
+        long millis = TimeUnit.MINUTES.toMillis(Math.max(1, minutes));
+        double jitter = properties.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return new Timestamp(System.currentTimeMillis() + (long) (millis * (1 + jitter)));
+    }
+}
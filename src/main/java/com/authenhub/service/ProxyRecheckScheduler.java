@@ -0,0 +1,91 @@
+package com.authenhub.service;
+
+import com.authenhub.bean.proxy.ProxySweepReport;
+import com.authenhub.config.DatabaseSwitcherConfig;
+import com.authenhub.config.application.ProxyRecheckProperties;
+import com.authenhub.entity.mongo.FreeProxy;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Re-checks proxies continuously in small batches, most overdue first, instead of one hourly burst.
+ * How long a proxy waits between checks comes from {@link ProxyRecheckPolicy}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProxyRecheckScheduler {
+
+    private final MongoTemplate mongoTemplate;
+    private final DatabaseSwitcherConfig databaseConfig;
+    private final ProxyRecheckProperties properties;
+    private final FreeProxyService freeProxyService;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong working = new AtomicLong();
+    private volatile ProxySweepReport lastBatchReport;
+
+    @PostConstruct
+    public void init() {
+        if (databaseConfig.isMongoActive()) {
+            try {
+                mongoTemplate.indexOps(FreeProxy.class).ensureIndex(new Index()
+                        .on("nextCheckAt", Sort.Direction.ASC)
+                        .named("idx_free_proxies_next_check_at"));
+            } catch (Exception e) {
+                log.warn("Could not create the free_proxies next check index: {}", e.getMessage());
+            }
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        log.info("Proxy re-check: up to {} proxies every {}s, healthy every {} min, backoff {}..{} min",
+                properties.getBatchSize(), properties.getTickSeconds(), properties.getHealthyIntervalMinutes(),
+                properties.getFailureBaseMinutes(), properties.getMaxBackoffMinutes());
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("batches", batches.get());
+        stats.put("checked", checked.get());
+        stats.put("working", working.get());
+        stats.put("lastBatch", lastBatchReport);
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${proxy.recheck.tick-seconds:15}",
+            initialDelayString = "${proxy.recheck.tick-seconds:15}", timeUnit = TimeUnit.SECONDS)
+    public void tick() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            ProxySweepReport report = freeProxyService.checkDueProxies(properties.getBatchSize());
+            if (report == null || report.getTotal() == 0) {
+                return;
+            }
+            lastBatchReport = report;
+            batches.incrementAndGet();
+            checked.addAndGet(report.getChecked());
+            working.addAndGet(report.getWorking());
+            log.debug("Re-checked {} proxies in {} ms: {} working, failures {}", report.getChecked(),
+                    report.getDurationMs(), report.getWorking(), report.getFailureReasons());
+        } catch (Exception e) {
+            // Keep the schedule alive, the next tick retries
+            log.error("Proxy re-check batch failed", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.authenhub.service;
+
+import com.authenhub.entity.RefreshToken;
+import com.authenhub.entity.User;
+import com.authenhub.exception.InvalidTokenException;
+import com.authenhub.repository.jpa.RefreshTokenJpaRepository;
+import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.utils.TimestampUtils;
+import com.google.common.hash.Hashing;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens.
+ * <p>
+ * Every refresh consumes the presented token and issues a new one in the same family. Presenting a
+ * token that was already used means it has leaked, so the whole family is revoked and the user
+ * has to log in again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final UserJpaRepository userRepository;
+    private final RefreshTokenJpaRepository refreshTokenRepository;
+
+    @Value("${jwt.refresh-token-expiration:2592000000}")
+    private long refreshTokenExpiration;
+
+    /**
+     * Start a new token family for a fresh login
+     */
+    public String issue(User user) {
+        return issue(user.getId(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume a refresh token and return the user it belongs to together with its replacement.
+     *
+     * @throws InvalidTokenException if the token is unknown, expired, revoked or reused
+     */
+    public Rotation rotate(String rawToken) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(InvalidTokenException::new);
+
+        if (refreshToken.isRevoked() || refreshToken.isExpired()) {
+            throw new InvalidTokenException();
+        }
+
+        // Atomic check-and-set, so two concurrent refreshes with the same token cannot both succeed
+        if (refreshToken.isUsed() || refreshTokenRepository.markUsed(refreshToken.getId()) == 0) {
+            log.warn("Refresh token reuse detected for user {}, revoke family {}",
+                    refreshToken.getUserId(), refreshToken.getFamilyId());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            throw new InvalidTokenException();
+        }
+
+        User user = userRepository.findById(refreshToken.getUserId())
+                .orElseThrow(InvalidTokenException::new);
+        if (!user.isActive()) {
+            log.info("User {} is inactive, revoke refresh token family {}", user.getId(), refreshToken.getFamilyId());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            throw new InvalidTokenException();
+        }
+
+        return new Rotation(user, issue(user.getId(), refreshToken.getFamilyId()));
+    }
+
+    /**
+     * Revoke every refresh token of a user, e.g. after a password change
+     */
+    public void revokeAll(Long userId) {
+        int revoked = refreshTokenRepository.revokeAllByUserId(userId);
+        log.info("Revoked {} refresh tokens of user {}", revoked, userId);
+    }
+
+    /**
+     * Revoke the family of a refresh token, e.g. on logout. Unknown tokens are ignored.
+     */
+    public void revokeFamily(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken)).ifPresent(refreshToken -> {
+            int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId());
+            log.info("Revoked {} refresh tokens of family {}", revoked, refreshToken.getFamilyId());
+        });
+    }
+
+    private String issue(Long userId, String familyId) {
+        byte[] bytes = new byte[32];
+        SECURE_RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .userId(userId)
+                .expiryDate(TimestampUtils.fromMillis(System.currentTimeMillis() + refreshTokenExpiration))
+                .used(false)
+                .revoked(false)
+                .createdAt(TimestampUtils.now())
+                .build();
+        refreshTokenRepository.save(refreshToken);
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        return Hashing.sha256().hashString(rawToken, StandardCharsets.UTF_8).toString();
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+}
@@ -12,6 +12,7 @@ import com.authenhub.exception.ResourceNotFoundException;
 import com.authenhub.repository.jpa.PermissionJpaRepository;
 import com.authenhub.repository.jpa.RoleJpaRepository;
 import com.authenhub.repository.jpa.RolePermissionRepository;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.service.interfaces.IRoleService;
 import com.authenhub.utils.TimestampUtils;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,7 @@ import java.util.stream.Collectors;
 public class RoleService implements IRoleService {
 
     private final RoleJpaRepository roleRepository;
+    private final AuthorizationCache authorizationCache;
     private final PermissionJpaRepository permissionRepository;
     private final RolePermissionRepository rolePermissionRepository;
 
@@ -152,6 +154,7 @@ public class RoleService implements IRoleService {
         role.setUpdatedAt(TimestampUtils.now());
 
         Role updatedRole = roleRepository.save(role);
+        authorizationCache.invalidateRole(id);
         return RoleResponse.fromEntity(updatedRole);
     }
 
@@ -166,6 +169,7 @@ public class RoleService implements IRoleService {
         }
 
         roleRepository.delete(role);
+        authorizationCache.invalidateRole(id);
     }
 
     @Override
@@ -193,6 +197,7 @@ public class RoleService implements IRoleService {
         role.setUpdatedAt(TimestampUtils.now());
 
         Role updatedRole = roleRepository.save(role);
+        authorizationCache.invalidateRole(roleId);
         return RoleResponse.fromEntity(updatedRole);
     }
 
@@ -213,6 +218,7 @@ public class RoleService implements IRoleService {
         role.setUpdatedAt(TimestampUtils.now());
 
         Role updatedRole = roleRepository.save(role);
+        authorizationCache.invalidateRole(roleId);
         return RoleResponse.fromEntity(updatedRole);
     }
 
@@ -3,6 +3,7 @@ package com.authenhub.service;
 import com.authenhub.bean.UserUpdateRequest;
 import com.authenhub.entity.User;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.security.UserSecurity;
 import com.authenhub.service.interfaces.IUserManagementService;
 import com.authenhub.utils.TimestampUtils;
@@ -19,6 +20,7 @@ public class UserManagementService implements IUserManagementService {
     private final UserContext userContext;
     private final UserSecurity userSecurity;
     private final UserJpaRepository userRepository;
+    private final AuthorizationCache authorizationCache;
     private final UserActivityService userActivityService;
 
     @Override
@@ -53,6 +55,7 @@ public class UserManagementService implements IUserManagementService {
 
         user.setUpdatedAt(TimestampUtils.now());
         User updatedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
 
         // Log the activity
         userActivityService.logActivity("Updated user profile for user ID: " + userId);
@@ -80,6 +83,7 @@ public class UserManagementService implements IUserManagementService {
         user.setActive(active);
         user.setUpdatedAt(TimestampUtils.now());
         User updatedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
 
         // Log the activity
         userActivityService.logActivity("Set active status to " + active + " for user ID: " + userId);
@@ -107,6 +111,7 @@ public class UserManagementService implements IUserManagementService {
         user.setRole(role);
         user.setUpdatedAt(TimestampUtils.now());
         User updatedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
 
         // Log the activity
         userActivityService.logActivity("Set role to " + role + " for user ID: " + userId);
@@ -5,6 +5,7 @@ import com.authenhub.entity.User;
 import com.authenhub.exception.ResourceNotFoundException;
 import com.authenhub.repository.jpa.RoleJpaRepository;
 import com.authenhub.repository.jpa.UserJpaRepository;
+import com.authenhub.security.AuthorizationCache;
 import com.authenhub.service.interfaces.IUserRoleService;
 import com.authenhub.utils.TimestampUtils;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +20,7 @@ public class UserRoleService implements IUserRoleService {
 
     private final RoleJpaRepository roleRepository;
     private final UserJpaRepository userRepository;
+    private final AuthorizationCache authorizationCache;
 
     @Override
     public User assignRolesToUser(Long userId, Long roleId) {
@@ -32,7 +34,9 @@ public class UserRoleService implements IUserRoleService {
         user.setRoleId(roleId);
         user.setUpdatedAt(TimestampUtils.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
+        return savedUser;
     }
 
     @Override
@@ -49,7 +53,9 @@ public class UserRoleService implements IUserRoleService {
 //        user.setRoleIds(updatedRoles);
 //        user.setUpdatedAt(TimestampUtils.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
+        return savedUser;
     }
 
     @Override
@@ -65,7 +71,9 @@ public class UserRoleService implements IUserRoleService {
             user.setUpdatedAt(TimestampUtils.now());
         }
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        authorizationCache.invalidateUser(userId);
+        return savedUser;
     }
 
     @Override
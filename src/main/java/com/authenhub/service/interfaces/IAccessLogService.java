@@ -1,10 +1,13 @@
 package com.authenhub.service.interfaces;
 
+import com.authenhub.bean.log.LoginActivity;
+import com.authenhub.bean.log.LoginActivityPage;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interface for access log service operations
@@ -28,6 +31,16 @@ public interface IAccessLogService {
      * @return daily counts
      */
     List<Map<String, Object>> countByDay(Timestamp start, Timestamp end);
+
+    /**
+     * Count by hour, day or week
+     *
+     * @param start start date
+     * @param end end date
+     * @param unit hour, day or week
+     * @return counts per bucket
+     */
+    List<Map<String, Object>> countByPeriod(Timestamp start, Timestamp end, String unit);
     
     /**
      * Count by browser
@@ -72,5 +85,43 @@ public interface IAccessLogService {
      * @param end end date
      * @return login activity
      */
-    List<Map<String, Object>> getLoginActivity(Timestamp start, Timestamp end);
+    List<LoginActivity> getLoginActivity(Timestamp start, Timestamp end);
+
+    /**
+     * Get one page of login activity, newest first, using keyset pagination on (timestamp, id)
+     *
+     * @param start start date
+     * @param end end date
+     * @param cursor nextCursor of the previous page, null for the first page
+     * @param limit page size
+     * @return login activity page with the cursor of the next page
+     */
+    LoginActivityPage getLoginActivityPage(Timestamp start, Timestamp end, String cursor, int limit);
+
+    /**
+     * Walk the login activity of a date range, newest first, holding only one page in memory
+     *
+     * @param start start date
+     * @param end end date
+     * @param consumer receives each login attempt in order
+     */
+    void forEachLoginActivity(Timestamp start, Timestamp end, Consumer<LoginActivity> consumer);
+
+    /**
+     * Count login attempts, answered from the (eventType, timestamp, outcome) index
+     *
+     * @param start start date
+     * @param end end date
+     * @return totalLogins, successfulLogins and failedLogins
+     */
+    Map<String, Object> countLogins(Timestamp start, Timestamp end);
+
+    /**
+     * Get latency percentiles of the busiest endpoints, recorded in memory by this node since startup.
+     * Not range-filtered, so it is kept out of {@link #getAccessStats}
+     *
+     * @param limit number of endpoints
+     * @return node id, start time and latency histograms with p50/p90/p95/p99
+     */
+    Map<String, Object> getEndpointLatency(int limit);
 }
@@ -9,6 +9,7 @@ import com.authenhub.bean.SocialLoginRequest;
 import com.authenhub.bean.auth.AuthRequest;
 import com.authenhub.bean.auth.AuthResponse;
 import com.authenhub.bean.auth.UserInfo;
+import io.jsonwebtoken.Claims;
 
 /**
  * Interface for authentication service operations
@@ -42,10 +43,10 @@ public interface IAuthService {
     /**
      * Get current user
      *
-     * @param token auth token
+     * @param claims claims of the verified access token
      * @return user info
      */
-    Object getCurrentUser(String token);
+    Object getCurrentUser(Claims claims);
     
     /**
      * Handle OAuth2 callback
@@ -75,5 +76,21 @@ public interface IAuthService {
      * @param request change password request
      */
     void changePassword(ChangePasswordRequest request);
-    AuthResponse refreshToken(String token);
+
+    /**
+     * Logout, revoking the access token and the refresh token family of the session
+     *
+     * @param token        auth token
+     * @param claims       claims of the verified access token
+     * @param refreshToken refresh token of the session, every refresh token of the user is revoked when absent
+     */
+    void logout(String token, Claims claims, String refreshToken);
+
+    /**
+     * Exchange a refresh token for a new access token and a rotated refresh token
+     *
+     * @param refreshToken refresh token issued at login or by a previous refresh
+     * @return auth response
+     */
+    AuthResponse refreshToken(String refreshToken);
 }
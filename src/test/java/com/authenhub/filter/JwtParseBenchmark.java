@@ -0,0 +1,111 @@
+package com.authenhub.filter;
+
+import com.authenhub.config.security.JwtSigningProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens/sec of access token parsing and verification.
+ * <ul>
+ *     <li>{@code perCall}: the former behaviour, parser and HMAC key rebuilt for every token</li>
+ *     <li>{@code sharedParser}: {@link JwtService} with its parser built once, verified cache disabled</li>
+ *     <li>{@code verifiedCache}: {@link JwtService} as configured by default, repeated tokens skip the HMAC</li>
+ * </ul>
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.authenhub.filter.JwtParseBenchmark
+ * -Dexec.classpathScope=test} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+    private String token;
+    private JwtService sharedParserService;
+    private JwtService cachedService;
+
+    @Setup
+    public void setup() throws Exception {
+        token = Jwts.builder()
+                .setClaims(Map.of("userId", 1L, "roleId", 1L))
+                .setSubject("admin")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+        sharedParserService = jwtService(false);
+        cachedService = jwtService(true);
+    }
+
+    @Benchmark
+    public Claims perCall() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return sharedParserService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifiedCache() {
+        return cachedService.extractAllClaims(token);
+    }
+
+    private static JwtService jwtService(boolean cacheEnabled) throws Exception {
+        JwtKeyProvider keyProvider = new JwtKeyProvider(new JwtSigningProperties());
+        setField(keyProvider, "secretKey", SECRET);
+        keyProvider.init();
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        setField(verifiedTokenCache, "enabled", cacheEnabled);
+        setField(verifiedTokenCache, "maximumSize", 10_000L);
+        verifiedTokenCache.init();
+
+        JwtService jwtService = new JwtService(keyProvider, verifiedTokenCache);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtParseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}